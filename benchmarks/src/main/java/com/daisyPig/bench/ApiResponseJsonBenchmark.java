@@ -0,0 +1,70 @@
+package com.daisyPig.bench;
+
+import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiResponse&lt;User&gt;（含角色和权限）的 Jackson 序列化。
+ * ObjectMapper 由 Jackson2ObjectMapperBuilder 创建，与 Spring Boot 默认配置一致；
+ * toStream 模拟消息转换器直接写入响应流，toBytes 额外包含结果数组的分配。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseJsonBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int roles;
+
+    @Param({"10", "500", "5000"})
+    private int permissionsPerRole;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse<User> response;
+    // Jackson 默认在写完后关闭目标流，这里的流忽略 close，与 Spring 写响应时包装的不可关闭流一致
+    private final OutputStream discard = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        response = ApiResponse.success(new RbacShape(roles, permissionsPerRole).toUser(1));
+    }
+
+    @Benchmark
+    public byte[] toBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public void toStream() throws IOException {
+        objectMapper.writeValue(discard, response);
+    }
+}
@@ -0,0 +1,164 @@
+package com.daisyPig.bench;
+
+import com.daisyPig.audit.AuthorizationAuditLog;
+import com.daisyPig.cache.CompiledPermissions;
+import com.daisyPig.cache.RbacCatalog;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.SessionPrincipal;
+import com.daisyPig.interceptor.AuthInterceptor;
+import com.daisyPig.interceptor.RouteAuthorizationTable;
+import com.daisyPig.interceptor.RouteRequirement;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import com.daisyPig.service.AccessTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 鉴权热点路径：AuthInterceptor.preHandle 整体（接口要求查找 + 取登录主体 + 位运算），
+ * 以及单独的 RouteRequirement.isSatisfiedBy。
+ * 所需权限取用户权限位图中ID最大的一个，即位图的最后一个字，对应最坏情况的扫描长度。
+ * 用户权限经 UserPermissionCache.get 正常加载（两个 Mapper 直接返回 RbacShape 生成的行），不直接写入缓存。
+ * source=session 时从会话中的 SessionPrincipal 取权限，source=token 时验签访问令牌。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int roles;
+
+    @Param({"10", "500", "5000"})
+    private int permissionsPerRole;
+
+    @Param({"session", "token"})
+    private String source;
+
+    private CompiledPermissions permissions;
+    private RouteRequirement requirement;
+    private AuthInterceptor authInterceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private HandlerMethod handler;
+
+    @Setup
+    public void setUp() throws Exception {
+        RbacShape shape = new RbacShape(roles, permissionsPerRole);
+        int required = shape.grantedPermissions().length() - 1;
+
+        // 按权限ID顺序分配内部ID，内部ID = 权限ID - 1，位图布局与 RbacShape 一致
+        RbacCatalog rbacCatalog = new RbacCatalog();
+        for (int permissionId = 1; permissionId <= RbacShape.CATALOG_PERMISSIONS; permissionId++) {
+            rbacCatalog.permissionId(RbacShape.permissionName(permissionId));
+        }
+        requirement = RouteRequirement.compile(new String[]{RbacShape.permissionName(required)}, new String[0],
+                rbacCatalog::permissionId);
+
+        // 与生产环境一样记录计时和缓存统计，基准结果包含埋点开销
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserPermissionCache userPermissionCache = new UserPermissionCache();
+        ReflectionTestUtils.setField(userPermissionCache, "userRoleMapper",
+                stubMapper(UserRoleMapper.class, "getUserRolesByUserIds", shape.toUserRoles(1)));
+        ReflectionTestUtils.setField(userPermissionCache, "rolePermissionMapper",
+                stubMapper(RolePermissionMapper.class, "getPermissionNamesByRoleIds", shape.toRolePermissionRows()));
+        ReflectionTestUtils.setField(userPermissionCache, "rbacCatalog", rbacCatalog);
+        ReflectionTestUtils.setField(userPermissionCache, "maximumSize", 10_000L);
+        ReflectionTestUtils.setField(userPermissionCache, "expireAfterWrite", Duration.ofHours(1));
+        ReflectionTestUtils.setField(userPermissionCache, "batchSize", 1000);
+        ReflectionTestUtils.setField(userPermissionCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(userPermissionCache, "init");
+        permissions = userPermissionCache.get(1);
+        if (!requirement.isSatisfiedBy(permissions)) {
+            throw new IllegalStateException("Benchmark user lacks the required permission");
+        }
+
+        AccessTokenService accessTokenService = new AccessTokenService();
+        ReflectionTestUtils.setField(accessTokenService, "userPermissionCache", userPermissionCache);
+        ReflectionTestUtils.setField(accessTokenService, "enabled", "token".equals(source));
+        ReflectionTestUtils.setField(accessTokenService, "secret", "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=");
+        ReflectionTestUtils.setField(accessTokenService, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(accessTokenService, "init");
+
+        handler = new HandlerMethod(new Routes(), "getUserById");
+        RouteAuthorizationTable routeAuthorizationTable = new RouteAuthorizationTable();
+        ReflectionTestUtils.setField(routeAuthorizationTable, "table", Map.of(handler.getMethod(), requirement));
+
+        authInterceptor = new AuthInterceptor();
+        ReflectionTestUtils.setField(authInterceptor, "userPermissionCache", userPermissionCache);
+        ReflectionTestUtils.setField(authInterceptor, "routeAuthorizationTable", routeAuthorizationTable);
+        ReflectionTestUtils.setField(authInterceptor, "accessTokenService", accessTokenService);
+        ReflectionTestUtils.setField(authInterceptor, "meterRegistry", meterRegistry);
+        // 审计日志未启用（rbac.audit.enabled 默认 false），只测鉴权本身
+        ReflectionTestUtils.setField(authInterceptor, "auditLog", new AuthorizationAuditLog());
+        ReflectionTestUtils.invokeMethod(authInterceptor, "init");
+
+        request = new MockHttpServletRequest("GET", "/api/users/1");
+        if ("token".equals(source)) {
+            request.addHeader("Authorization", "Bearer " + accessTokenService.issue(1));
+        } else {
+            MockHttpSession session = new MockHttpSession();
+            session.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, userPermissionCache.principalOf(1));
+            request.setSession(session);
+        }
+        response = new MockHttpServletResponse();
+        if (!authInterceptor.preHandle(request, response, handler)) {
+            throw new IllegalStateException("Benchmark request was denied");
+        }
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        return authInterceptor.preHandle(request, response, handler);
+    }
+
+    @Benchmark
+    public boolean isSatisfiedBy() {
+        return requirement.isSatisfiedBy(permissions);
+    }
+
+    // 只实现 UserPermissionCache.get 用到的一个查询方法，其它方法不会被调用
+    private static <T> T stubMapper(Class<T> type, String methodName, Object result) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        return result;
+                    }
+                    if (method.getName().equals("toString")) {
+                        return type.getSimpleName() + "(" + methodName + ")";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    /**
+     * 被检查的接口方法，只用于构造 HandlerMethod。
+     */
+    public static class Routes {
+        public void getUserById() {
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.daisyPig.bench;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 生成大规模 RBAC 测试数据并批量写入 users、roles、permissions、user_roles、role_permissions 五张表。
+ * 同一组参数和种子生成的数据完全相同（包括 bcrypt 盐值），可以在 MySQL 和内嵌 H2（MySQL 模式）之间复现。
+ * <p>
+ * 数据形状：
+ * <ul>
+ *     <li>权限：README 中的系统权限，其后为 res00001:view 形式的合成权限，共 --permissions 个；</li>
+ *     <li>角色：Administrator（全部系统权限）、RegularUser（注册默认角色），其后为合成角色，共 --roles 个，
+ *     每个合成角色的权限数服从均值为 --permissions-per-role 的对数正态分布；</li>
+ *     <li>用户：admin（密码 123456，Administrator 角色），其后为合成用户，共 --users 个。每个合成用户都有 RegularUser，
+ *     另有均值为 --roles-per-user 的几何分布个合成角色，角色按指数为 --role-skew 的 Zipf 分布抽取，少数角色覆盖大部分用户。</li>
+ * </ul>
+ * 合成用户 userN 的密码为 passwordK（K = N % --password-pool），哈希预先计算，写入时不再做 bcrypt。
+ * <p>
+ * 运行方式（参数均可省略，括号内为默认值）：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.daisyPig.bench.DatasetSeeder \
+ *     --url=jdbc:h2:file:./target/rbac;MODE=MySQL;DATABASE_TO_LOWER=TRUE --username=sa --password= \
+ *     --create-schema --users=1000000 --roles=2000 --permissions=5000 --seed=42
+ * </pre>
+ * 其它参数：--permissions-per-role(20) --roles-per-user(2) --role-skew(1.1) --password-pool(16)
+ * --bcrypt-cost(10) --batch-size(1000)。目标表必须为空。
+ */
+public final class DatasetSeeder {
+    static final String[][] SYSTEM_PERMISSIONS = {
+            {"role:create", "创建角色的权限"},
+            {"permission:create", "创建权限的权限"},
+            {"role:assign_permission", "为角色分配权限的权限"},
+            {"user:assign_role", "为用户分配角色的权限"},
+            {"role:view", "查看角色的权限"},
+            {"role:edit", "编辑角色的权限"},
+            {"role:delete", "删除角色的权限"},
+            {"role:remove_permission", "移除角色权限的权限"},
+            {"user:view", "查看用户的权限"},
+            {"user:edit", "编辑用户的权限"},
+            {"user:delete", "删除用户的权限"},
+            {"user:remove_role", "移除用户角色的权限"},
+            {"permission:view", "查看权限的权限"},
+            {"permission:edit", "编辑权限的权限"},
+            {"permission:delete", "删除权限的权限"},
+            {"authz:check", "批量校验用户权限的权限"},
+            {"user:export", "导出用户数据的权限"},
+            {"user:import", "批量导入用户的权限"}
+    };
+    static final String[][] REGULAR_USER_PERMISSIONS = {
+            {"user:view_self", "查看自身用户信息的权限"},
+            {"role:view_list", "查看角色列表的权限"},
+            {"permission:view_list", "查看权限列表的权限"}
+    };
+    private static final String[] ACTIONS = {"view", "edit", "create", "delete"};
+    private static final int ADMIN_ROLE_ID = 1;
+    private static final int REGULAR_USER_ROLE_ID = 2;
+    private static final int FIRST_SYNTHETIC_ROLE_ID = 3;
+    private static final String ADMIN_PASSWORD = "123456";
+    private static final LocalDateTime CREATED_FROM = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final long CREATED_SPAN_SECONDS = 2L * 365 * 24 * 3600;
+
+    private final Map<String, String> options;
+    private final long seed;
+    private final int users;
+    private final int roles;
+    private final int permissions;
+    private final int permissionsPerRole;
+    private final double rolesPerUser;
+    private final double roleSkew;
+    private final int passwordPool;
+    private final int bcryptCost;
+    private final int batchSize;
+
+    DatasetSeeder(Map<String, String> options) {
+        this.options = options;
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "100000"));
+        this.roles = Integer.parseInt(options.getOrDefault("roles", "1000"));
+        this.permissions = Integer.parseInt(options.getOrDefault("permissions", "5000"));
+        this.permissionsPerRole = Integer.parseInt(options.getOrDefault("permissions-per-role", "20"));
+        this.rolesPerUser = Double.parseDouble(options.getOrDefault("roles-per-user", "2"));
+        this.roleSkew = Double.parseDouble(options.getOrDefault("role-skew", "1.1"));
+        this.passwordPool = Integer.parseInt(options.getOrDefault("password-pool", "16"));
+        this.bcryptCost = Integer.parseInt(options.getOrDefault("bcrypt-cost", "10"));
+        this.batchSize = Integer.parseInt(options.getOrDefault("batch-size", "1000"));
+        int systemPermissions = SYSTEM_PERMISSIONS.length + REGULAR_USER_PERMISSIONS.length;
+        if (permissions < systemPermissions || roles < FIRST_SYNTHETIC_ROLE_ID - 1 || users < 1) {
+            throw new IllegalArgumentException("Need at least " + systemPermissions + " permissions, 2 roles and 1 user");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        String url = options.getOrDefault("url", "jdbc:h2:file:./target/rbac;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+        try (Connection connection = DriverManager.getConnection(url,
+                options.getOrDefault("username", "sa"), options.getOrDefault("password", ""))) {
+            new DatasetSeeder(options).run(connection);
+        }
+    }
+
+    void run(Connection connection) throws SQLException {
+        if (Boolean.parseBoolean(options.getOrDefault("create-schema", "false"))) {
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql"))
+                    .execute(new SingleConnectionDataSource(connection, true));
+        }
+        for (String table : new String[]{"users", "roles", "permissions", "user_roles", "role_permissions"}) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                rs.next();
+                if (rs.getLong(1) > 0) {
+                    throw new IllegalStateException("Table " + table + " is not empty");
+                }
+            }
+        }
+        connection.setAutoCommit(false);
+        seedPermissions(connection);
+        int[] roleSizes = seedRoles(connection);
+        seedRolePermissions(connection, roleSizes);
+        seedUsers(connection);
+        connection.setAutoCommit(true);
+    }
+
+    private void seedPermissions(Connection connection) throws SQLException {
+        try (BatchInsert insert = new BatchInsert(connection, "permissions", "id, permission_name, description", 3)) {
+            int id = 0;
+            for (String[] permission : SYSTEM_PERMISSIONS) {
+                insert.add(++id, permission[0], permission[1]);
+            }
+            for (String[] permission : REGULAR_USER_PERMISSIONS) {
+                insert.add(++id, permission[0], permission[1]);
+            }
+            while (id < permissions) {
+                id++;
+                int resource = (id - 1) / ACTIONS.length + 1;
+                insert.add(id, String.format("res%05d:%s", resource, ACTIONS[(id - 1) % ACTIONS.length]), null);
+            }
+        }
+    }
+
+    // 返回每个合成角色的权限数，下标为 roleId - FIRST_SYNTHETIC_ROLE_ID
+    private int[] seedRoles(Connection connection) throws SQLException {
+        Random random = new Random(seed);
+        int syntheticPermissions = permissions - SYSTEM_PERMISSIONS.length - REGULAR_USER_PERMISSIONS.length;
+        int[] roleSizes = new int[roles - FIRST_SYNTHETIC_ROLE_ID + 1];
+        try (BatchInsert insert = new BatchInsert(connection, "roles", "id, role_name, description", 3)) {
+            insert.add(ADMIN_ROLE_ID, "Administrator", "系统管理员，拥有最高权限");
+            insert.add(REGULAR_USER_ROLE_ID, "RegularUser", "普通用户角色");
+            for (int i = 0; i < roleSizes.length; i++) {
+                int roleId = FIRST_SYNTHETIC_ROLE_ID + i;
+                insert.add(roleId, String.format("role%05d", roleId), null);
+                // 对数正态分布，sigma = 0.75，均值约为 permissionsPerRole
+                double size = permissionsPerRole * Math.exp(0.75 * random.nextGaussian() - 0.28125);
+                roleSizes[i] = (int) Math.max(1, Math.min(syntheticPermissions, Math.round(size)));
+            }
+        }
+        return roleSizes;
+    }
+
+    private void seedRolePermissions(Connection connection, int[] roleSizes) throws SQLException {
+        Random random = new Random(seed + 1);
+        int firstSynthetic = SYSTEM_PERMISSIONS.length + REGULAR_USER_PERMISSIONS.length + 1;
+        int syntheticPermissions = permissions - firstSynthetic + 1;
+        try (BatchInsert insert = new BatchInsert(connection, "role_permissions", "role_id, permission_id", 2)) {
+            for (int i = 1; i <= SYSTEM_PERMISSIONS.length; i++) {
+                insert.add(ADMIN_ROLE_ID, i);
+            }
+            for (int i = 1; i <= REGULAR_USER_PERMISSIONS.length; i++) {
+                insert.add(REGULAR_USER_ROLE_ID, SYSTEM_PERMISSIONS.length + i);
+            }
+            for (int i = 0; i < roleSizes.length; i++) {
+                for (int offset : distinct(random, roleSizes[i], syntheticPermissions)) {
+                    insert.add(FIRST_SYNTHETIC_ROLE_ID + i, firstSynthetic + offset);
+                }
+            }
+        }
+    }
+
+    private void seedUsers(Connection connection) throws SQLException {
+        Random random = new Random(seed + 2);
+        SecureRandom saltRandom = seededSecureRandom(seed + 3);
+        String adminHash = BCrypt.hashpw(ADMIN_PASSWORD, BCrypt.gensalt(bcryptCost, saltRandom));
+        String[] hashes = new String[passwordPool];
+        for (int i = 0; i < passwordPool; i++) {
+            hashes[i] = BCrypt.hashpw("password" + i, BCrypt.gensalt(bcryptCost, saltRandom));
+        }
+        int syntheticRoles = roles - FIRST_SYNTHETIC_ROLE_ID + 1;
+        ZipfSampler roleSampler = syntheticRoles > 0 ? new ZipfSampler(syntheticRoles, roleSkew) : null;
+        // 几何分布 P(k) = (1 - p)^k * p，均值 (1 - p) / p = rolesPerUser
+        double p = 1 / (1 + rolesPerUser);
+
+        try (BatchInsert userInsert = new BatchInsert(connection, "users", "id, username, password, email, created_at", 5);
+             BatchInsert roleInsert = new BatchInsert(connection, "user_roles", "user_id, role_id", 2)) {
+            userInsert.add(1, "admin", adminHash, "admin@example.com", Timestamp.valueOf(CREATED_FROM));
+            roleInsert.add(1, ADMIN_ROLE_ID);
+            int[] chosen = new int[syntheticRoles];
+            for (int id = 2; id <= users; id++) {
+                String username = String.format("user%08d", id);
+                long createdAt = (long) (random.nextDouble() * CREATED_SPAN_SECONDS);
+                userInsert.add(id, username, hashes[id % passwordPool], username + "@example.com",
+                        Timestamp.valueOf(CREATED_FROM.plusSeconds(createdAt)));
+                roleInsert.add(id, REGULAR_USER_ROLE_ID);
+                if (roleSampler == null) {
+                    continue;
+                }
+                int extra = (int) Math.min(syntheticRoles, Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p)));
+                int count = 0;
+                while (count < extra) {
+                    int roleIndex = roleSampler.sample(random);
+                    boolean duplicate = false;
+                    for (int i = 0; i < count; i++) {
+                        duplicate |= chosen[i] == roleIndex;
+                    }
+                    if (!duplicate) {
+                        chosen[count++] = roleIndex;
+                    }
+                }
+                Arrays.sort(chosen, 0, count);
+                for (int i = 0; i < count; i++) {
+                    roleInsert.add(id, FIRST_SYNTHETIC_ROLE_ID + chosen[i]);
+                }
+            }
+        }
+    }
+
+    // 从 [0, bound) 中不重复地抽取 count 个数，按升序返回
+    private static int[] distinct(Random random, int count, int bound) {
+        if (count * 2 > bound) {
+            // 抽取比例较大时用部分洗牌，避免拒绝采样反复重试
+            int[] pool = new int[bound];
+            for (int i = 0; i < bound; i++) {
+                pool[i] = i;
+            }
+            for (int i = 0; i < count; i++) {
+                int j = i + random.nextInt(bound - i);
+                int tmp = pool[i];
+                pool[i] = pool[j];
+                pool[j] = tmp;
+            }
+            int[] result = Arrays.copyOf(pool, count);
+            Arrays.sort(result);
+            return result;
+        }
+        BitSet picked = new BitSet(bound);
+        while (picked.cardinality() < count) {
+            picked.set(random.nextInt(bound));
+        }
+        return picked.stream().toArray();
+    }
+
+    // bcrypt 盐值也由种子决定，保证同一种子生成的哈希完全相同
+    private static SecureRandom seededSecureRandom(long seed) {
+        Random random = new Random(seed);
+        return new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                random.nextBytes(bytes);
+            }
+        };
+    }
+
+    /**
+     * 按 Zipf 分布抽取 [0, n) 中的下标，下标 k 的概率与 1 / (k + 1)^s 成正比。
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double s) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, s);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    /**
+     * 多行 INSERT：每 batchSize 行拼成一条语句执行并提交，语句按行数缓存复用。
+     */
+    private final class BatchInsert implements AutoCloseable {
+        private final Connection connection;
+        private final String table;
+        private final String columns;
+        private final int width;
+        private final List<Object> values = new ArrayList<>();
+        private PreparedStatement fullBatch;
+        private long rows;
+        private final long startedAt = System.nanoTime();
+
+        BatchInsert(Connection connection, String table, String columns, int width) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.width = width;
+        }
+
+        void add(Object... row) throws SQLException {
+            values.addAll(Arrays.asList(row));
+            if (values.size() == batchSize * width) {
+                if (fullBatch == null) {
+                    fullBatch = connection.prepareStatement(sql(batchSize));
+                }
+                execute(fullBatch);
+            }
+        }
+
+        private void execute(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            statement.executeUpdate();
+            connection.commit();
+            rows += values.size() / width;
+            values.clear();
+            if (rows % (batchSize * 100L) == 0) {
+                progress();
+            }
+        }
+
+        private String sql(int rowCount) {
+            String row = "(" + "?, ".repeat(width - 1) + "?)";
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(columns).append(") VALUES ").append(row);
+            for (int i = 1; i < rowCount; i++) {
+                sql.append(", ").append(row);
+            }
+            return sql.toString();
+        }
+
+        private void progress() {
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            System.out.printf("%s: %d rows (%.0f rows/s)%n", table, rows, rows / Math.max(seconds, 1e-9));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (!values.isEmpty()) {
+                try (PreparedStatement tail = connection.prepareStatement(sql(values.size() / width))) {
+                    execute(tail);
+                }
+            }
+            if (fullBatch != null) {
+                fullBatch.close();
+            }
+            progress();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.daisyPig.bench;
+
+import com.daisyPig.dto.RolePermissionRow;
+import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.Role;
+import com.daisyPig.entity.User;
+import com.daisyPig.entity.UserRole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试使用的授权数据形状：一个用户持有 roles 个角色，每个角色从 CATALOG_PERMISSIONS 个权限中
+ * 随机选取 permissionsPerRole 个（角色之间可以重叠）。随机种子固定，同一组参数每次生成的数据相同。
+ */
+final class RbacShape {
+    // 系统中权限总数，权限ID取值为 [1, CATALOG_PERMISSIONS]
+    static final int CATALOG_PERMISSIONS = 10_000;
+
+    private final int[][] permissionIdsByRole;
+
+    RbacShape(int roles, int permissionsPerRole) {
+        Random random = new Random(42);
+        permissionIdsByRole = new int[roles][];
+        for (int r = 0; r < roles; r++) {
+            // 部分 Fisher-Yates 洗牌，取前 permissionsPerRole 个作为该角色的权限
+            int[] pool = new int[CATALOG_PERMISSIONS];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = i + 1;
+            }
+            for (int i = 0; i < permissionsPerRole; i++) {
+                int j = i + random.nextInt(pool.length - i);
+                int tmp = pool[i];
+                pool[i] = pool[j];
+                pool[j] = tmp;
+            }
+            permissionIdsByRole[r] = Arrays.copyOf(pool, permissionsPerRole);
+        }
+    }
+
+    int roleCount() {
+        return permissionIdsByRole.length;
+    }
+
+    int[] roleIds() {
+        int[] roleIds = new int[permissionIdsByRole.length];
+        for (int r = 0; r < roleIds.length; r++) {
+            roleIds[r] = r + 1;
+        }
+        return roleIds;
+    }
+
+    int[] permissionIds(int roleIndex) {
+        return permissionIdsByRole[roleIndex];
+    }
+
+    /**
+     * 用户全部角色的权限并集，以权限ID为下标。
+     */
+    BitSet grantedPermissions() {
+        BitSet granted = new BitSet();
+        for (int[] permissionIds : permissionIdsByRole) {
+            for (int permissionId : permissionIds) {
+                granted.set(permissionId);
+            }
+        }
+        return granted;
+    }
+
+    static String permissionName(int permissionId) {
+        return String.format("resource%05d:view", permissionId);
+    }
+
+    static String roleName(int roleId) {
+        return "role" + roleId;
+    }
+
+    /**
+     * 与 UserRoleMapper.getUserRolesByUserIds 返回结果形状相同的关联行。
+     */
+    List<UserRole> toUserRoles(int userId) {
+        List<UserRole> rows = new ArrayList<>(permissionIdsByRole.length);
+        for (int roleId : roleIds()) {
+            UserRole userRole = new UserRole();
+            userRole.setUserId(userId);
+            userRole.setRoleId(roleId);
+            rows.add(userRole);
+        }
+        return rows;
+    }
+
+    /**
+     * 与 RolePermissionMapper.getPermissionNamesByRoleIds 返回结果形状相同的行。
+     */
+    List<RolePermissionRow> toRolePermissionRows() {
+        List<RolePermissionRow> rows = new ArrayList<>();
+        for (int r = 0; r < permissionIdsByRole.length; r++) {
+            for (int permissionId : permissionIdsByRole[r]) {
+                RolePermissionRow row = new RolePermissionRow();
+                row.setRoleId(r + 1);
+                row.setPermissionName(permissionName(permissionId));
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 与 UserMapper.selectUserWithRoles 返回结果形状相同的对象图。
+     */
+    User toUser(int userId) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z8lP1lHgZzL5Q9M0mVvFJx2W");
+        user.setEmail("user" + userId + "@example.com");
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0));
+        List<Role> roles = new ArrayList<>();
+        for (int r = 0; r < permissionIdsByRole.length; r++) {
+            Role role = new Role();
+            role.setId(r + 1);
+            role.setRoleName(roleName(r + 1));
+            role.setDescription("benchmark role " + (r + 1));
+            List<Permission> permissions = new ArrayList<>();
+            for (int permissionId : permissionIdsByRole[r]) {
+                Permission permission = new Permission();
+                permission.setId(permissionId);
+                permission.setPermissionName(permissionName(permissionId));
+                permission.setDescription("benchmark permission " + permissionId);
+                permissions.add(permission);
+            }
+            role.setPermissions(permissions);
+            roles.add(role);
+        }
+        user.setRoles(roles);
+        return user;
+    }
+}
@@ -0,0 +1,135 @@
+package com.daisyPig.bench;
+
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.daisyPig.entity.User;
+import com.daisyPig.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService.getUserWithRoles 的对象图组装：UserMapper.selectUserWithRoles 的联表查询结果
+ * （角色数 × 每角色权限数 行）经 MyBatis 嵌套结果映射组装成 用户 -> 角色 -> 权限。
+ * 数据库为内存中的 H2（MySQL 模式），耗时包含 H2 执行查询的部分；每次操作的分配量主要来自结果映射。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserGraphBenchmark {
+    private static final int USER_ID = 1;
+
+    @Param({"1", "10", "50"})
+    private int roles;
+
+    @Param({"10", "500", "5000"})
+    private int permissionsPerRole;
+
+    private JdbcConnectionPool dataSource;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:user_graph;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        seed(new RbacShape(roles, permissionsPerRole));
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath*:mapper/*.xml"));
+        sqlSessionFactory = factoryBean.getObject();
+
+        User user = selectUserWithRoles();
+        if (user.getRoles().size() != roles) {
+            throw new IllegalStateException("Expected " + roles + " roles but got " + user.getRoles().size());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.dispose();
+    }
+
+    /**
+     * 与 Spring 中不在事务内调用 Mapper 的行为一致：每次调用使用新的 SqlSession，不命中一级缓存。
+     */
+    @Benchmark
+    public User selectUserWithRoles() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            return sqlSession.getMapper(UserMapper.class).selectUserWithRoles(USER_ID);
+        }
+    }
+
+    private void seed(RbacShape shape) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO permissions (id, permission_name, description) VALUES (?, ?, ?)")) {
+                for (int permissionId = 1; permissionId <= RbacShape.CATALOG_PERMISSIONS; permissionId++) {
+                    insert.setInt(1, permissionId);
+                    insert.setString(2, RbacShape.permissionName(permissionId));
+                    insert.setString(3, "benchmark permission " + permissionId);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement insertRole = connection.prepareStatement(
+                    "INSERT INTO roles (id, role_name, description) VALUES (?, ?, ?)");
+                 PreparedStatement insertRolePermission = connection.prepareStatement(
+                         "INSERT INTO role_permissions (role_id, permission_id) VALUES (?, ?)");
+                 PreparedStatement insertUserRole = connection.prepareStatement(
+                         "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)")) {
+                for (int r = 0; r < shape.roleCount(); r++) {
+                    int roleId = r + 1;
+                    insertRole.setInt(1, roleId);
+                    insertRole.setString(2, RbacShape.roleName(roleId));
+                    insertRole.setString(3, "benchmark role " + roleId);
+                    insertRole.addBatch();
+                    for (int permissionId : shape.permissionIds(r)) {
+                        insertRolePermission.setInt(1, roleId);
+                        insertRolePermission.setInt(2, permissionId);
+                        insertRolePermission.addBatch();
+                    }
+                    insertUserRole.setInt(1, USER_ID);
+                    insertUserRole.setInt(2, roleId);
+                    insertUserRole.addBatch();
+                }
+                insertRole.executeBatch();
+                insertRolePermission.executeBatch();
+                insertUserRole.executeBatch();
+            }
+            try (PreparedStatement insertUser = connection.prepareStatement(
+                    "INSERT INTO users (id, username, password, email) VALUES (?, ?, ?, ?)")) {
+                User user = shape.toUser(USER_ID);
+                insertUser.setInt(1, USER_ID);
+                insertUser.setString(2, user.getUsername());
+                insertUser.setString(3, user.getPassword());
+                insertUser.setString(4, user.getEmail());
+                insertUser.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+}
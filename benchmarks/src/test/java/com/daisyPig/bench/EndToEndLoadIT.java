@@ -0,0 +1,351 @@
+package com.daisyPig.bench;
+
+import com.daisyPig.ApplicationStarter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 端到端吞吐量/延迟回归测试：用 DatasetSeeder 向内存 H2（MySQL 模式）写入固定种子的数据集，
+ * 在同一进程中启动完整应用，以固定并发的闭环客户端按比例混合请求：
+ * 以带权限校验的读为主，另有管理员写操作（为用户分配、移除角色）；
+ * 登录由单独的少量客户端持续发起，避免 bcrypt 的长耗时占满闭环客户端、压低读请求的并发。
+ * <p>
+ * 每个接口输出吞吐量和 p50/p99/p999 延迟，并与 perf-baseline.json 比较：
+ * 吞吐量低于基线超过 perf.throughput-tolerance，或 p99 高于基线超过 perf.latency-tolerance 时测试失败。
+ * 基线与机器相关，只保存在本机（不提交到仓库），并记录生成时的 CPU 核数和 JVM；
+ * 基线不存在或运行环境与基线不一致时跳过比较。在本机用 -Dperf.update-baseline=true 生成或更新基线。
+ * <pre>
+ * mvn -B install -DskipTests
+ * mvn -B -f benchmarks/pom.xml verify -Pperf
+ * </pre>
+ */
+class EndToEndLoadIT {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String DB_URL = "jdbc:h2:mem:e2e;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int USERS = Integer.getInteger("perf.users", 50_000);
+    private static final int ROLES = Integer.getInteger("perf.roles", 500);
+    private static final int PERMISSIONS = Integer.getInteger("perf.permissions", 2_000);
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 32);
+    private static final int LOGIN_CLIENTS = Integer.getInteger("perf.login-clients", 2);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("perf.warmup-seconds", 15));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("perf.duration-seconds", 30));
+    private static final double THROUGHPUT_TOLERANCE = Double.parseDouble(System.getProperty("perf.throughput-tolerance", "0.25"));
+    private static final double LATENCY_TOLERANCE = Double.parseDouble(System.getProperty("perf.latency-tolerance", "0.5"));
+    private static final long MIN_LATENCY_SAMPLES = 200;
+
+    private static ConfigurableApplicationContext context;
+    private static String baseUrl;
+    private static String adminCookie;
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeAll
+    static void startApplication() throws Exception {
+        try (Connection connection = DriverManager.getConnection(DB_URL, "sa", "")) {
+            new DatasetSeeder(Map.of(
+                    "create-schema", "true",
+                    "users", String.valueOf(USERS),
+                    "roles", String.valueOf(ROLES),
+                    "permissions", String.valueOf(PERMISSIONS),
+                    "seed", "42")).run(connection);
+        }
+        context = new SpringApplicationBuilder(ApplicationStarter.class).run(
+                "--server.port=0",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.url=" + DB_URL,
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.sql.init.mode=never",
+                "--mybatis-plus.configuration.log-impl=org.apache.ibatis.logging.nologging.NoLoggingImpl",
+                "--logging.level.root=WARN",
+                // 与种子数据的哈希代价一致，避免登录时后台重算哈希
+                "--rbac.password.strength=10",
+                // 所有请求来自同一地址，放开登录限流
+                "--rbac.login.throttle.ip.burst=1000000",
+                "--rbac.login.throttle.ip.per-minute=1000000",
+                "--rbac.login.throttle.username.burst=1000000",
+                "--rbac.login.throttle.username.per-minute=1000000");
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        HttpResponse<String> login = CLIENT.send(loginRequest("admin", "123456"), HttpResponse.BodyHandlers.ofString());
+        JsonNode body = OBJECT_MAPPER.readTree(login.body());
+        assertTrue(body.path("success").asBoolean(), login.body());
+        adminCookie = "JSESSIONID=" + body.path("data").asText();
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void throughputAndLatencyWithinBaseline() throws Exception {
+        Map<String, Histogram> histograms = run();
+        ObjectNode report = report(histograms);
+        File reportFile = new File(System.getProperty("perf.report", "target/perf-report.json"));
+        reportFile.getParentFile().mkdirs();
+        OBJECT_MAPPER.writeValue(reportFile, report);
+
+        File baselineFile = new File(System.getProperty("perf.baseline", "perf-baseline.json"));
+        if (Boolean.getBoolean("perf.update-baseline")) {
+            baselineFile.getAbsoluteFile().getParentFile().mkdirs();
+            OBJECT_MAPPER.writeValue(baselineFile, report);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+        Assumptions.assumeTrue(baselineFile.exists(), () -> "No baseline at " + baselineFile
+                + ", skipping comparison; record one on this host with -Dperf.update-baseline=true");
+        JsonNode baseline = OBJECT_MAPPER.readTree(baselineFile);
+        JsonNode environment = report.get("environment");
+        Assumptions.assumeTrue(environment.equals(baseline.get("environment")), () -> "Baseline " + baselineFile
+                + " was recorded on " + baseline.get("environment") + " but this run is on " + environment
+                + ", skipping comparison; re-record it on this host with -Dperf.update-baseline=true");
+
+        JsonNode expectedEndpoints = baseline.path("endpoints");
+        List<String> regressions = new ArrayList<>();
+        report.get("endpoints").fields().forEachRemaining(entry -> {
+            JsonNode expected = expectedEndpoints.get(entry.getKey());
+            if (expected == null) {
+                return;
+            }
+            double rps = entry.getValue().path("rps").asDouble();
+            double p99 = entry.getValue().path("p99Ms").asDouble();
+            if (rps < expected.path("rps").asDouble() * (1 - THROUGHPUT_TOLERANCE)) {
+                regressions.add(String.format("%s: %.1f req/s < baseline %.1f", entry.getKey(), rps, expected.path("rps").asDouble()));
+            }
+            // 样本太少时 p99 只是最慢的几个请求之一，不作比较
+            if (entry.getValue().path("count").asLong() >= MIN_LATENCY_SAMPLES
+                    && p99 > expected.path("p99Ms").asDouble() * (1 + LATENCY_TOLERANCE)) {
+                regressions.add(String.format("%s: p99 %.2f ms > baseline %.2f", entry.getKey(), p99, expected.path("p99Ms").asDouble()));
+            }
+        });
+        assertTrue(regressions.isEmpty(), "Performance regressed:\n" + String.join("\n", regressions));
+    }
+
+    /**
+     * 固定并发的闭环压测，每个客户端使用自己的固定种子，按权重选择下一个请求。
+     * 预热阶段不计入结果；只统计 HTTP 2xx 响应的延迟，其它响应和异常使测试失败。
+     */
+    private Map<String, Histogram> run() throws Exception {
+        long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+        long end = warmupEnd + MEASUREMENT.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS + LOGIN_CLIENTS);
+        List<Future<Map<String, Histogram>>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS + LOGIN_CLIENTS; i++) {
+            Random random = new Random(1000 + i);
+            boolean loginClient = i >= CLIENTS;
+            results.add(clients.submit(() -> {
+                Map<String, Histogram> local = new TreeMap<>();
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start >= end) {
+                        return local;
+                    }
+                    Operation operation = loginClient ? Operation.LOGIN : Operation.next(random);
+                    HttpRequest request = operation.request(random);
+                    int status = CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    long elapsed = System.nanoTime() - start;
+                    if (status / 100 != 2) {
+                        throw new IllegalStateException(operation.name + " returned HTTP " + status);
+                    }
+                    if (start >= warmupEnd) {
+                        local.computeIfAbsent(operation.name, k -> new Histogram(TimeUnit.SECONDS.toNanos(60), 3))
+                                .recordValue(elapsed);
+                    }
+                }
+            }));
+        }
+        Map<String, Histogram> merged = new TreeMap<>();
+        try {
+            for (Future<Map<String, Histogram>> result : results) {
+                result.get().forEach((name, histogram) ->
+                        merged.computeIfAbsent(name, k -> new Histogram(TimeUnit.SECONDS.toNanos(60), 3)).add(histogram));
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        Histogram total = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+        merged.values().forEach(total::add);
+        merged.put("total", total);
+        return merged;
+    }
+
+    /**
+     * 报告包含运行环境（CPU 核数、JVM）和各接口的结果；只有运行环境相同的基线才可比较。
+     */
+    private static ObjectNode report(Map<String, Histogram> histograms) {
+        ObjectNode report = OBJECT_MAPPER.createObjectNode();
+        ObjectNode environment = report.putObject("environment");
+        environment.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        environment.put("jvm", System.getProperty("java.vm.name") + " " + System.getProperty("java.vm.version"));
+        ObjectNode endpoints = report.putObject("endpoints");
+        double seconds = MEASUREMENT.toNanos() / 1e9;
+        System.out.printf("%-40s %10s %10s %10s %10s%n", "endpoint", "req/s", "p50 ms", "p99 ms", "p999 ms");
+        histograms.forEach((name, histogram) -> {
+            double rps = histogram.getTotalCount() / seconds;
+            double p50 = histogram.getValueAtPercentile(50) / 1e6;
+            double p99 = histogram.getValueAtPercentile(99) / 1e6;
+            double p999 = histogram.getValueAtPercentile(99.9) / 1e6;
+            System.out.printf("%-40s %10.1f %10.2f %10.2f %10.2f%n", name, rps, p50, p99, p999);
+            ObjectNode entry = endpoints.putObject(name);
+            entry.put("count", histogram.getTotalCount());
+            entry.put("rps", Math.round(rps * 10) / 10.0);
+            entry.put("p50Ms", Math.round(p50 * 100) / 100.0);
+            entry.put("p99Ms", Math.round(p99 * 100) / 100.0);
+            entry.put("p999Ms", Math.round(p999 * 100) / 100.0);
+        });
+        return report;
+    }
+
+    private static HttpRequest loginRequest(String username, String password) throws Exception {
+        String body = OBJECT_MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Cookie", adminCookie).GET().build();
+    }
+
+    private static int syntheticUser(Random random) {
+        return 2 + random.nextInt(USERS - 1);
+    }
+
+    private static int syntheticRole(Random random) {
+        return 3 + random.nextInt(ROLES - 2);
+    }
+
+    /**
+     * 请求类型及其在混合请求中的权重（合计 100），登录只由登录客户端发起。
+     */
+    private enum Operation {
+        GET_USER("GET /api/users/{id}", 38) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/users/" + syntheticUser(random));
+            }
+        },
+        LIST_USERS("GET /api/users", 10) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/users?limit=50&after=" + random.nextInt(USERS));
+            }
+        },
+        GET_ROLE("GET /api/roles/{id}", 15) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/roles/" + syntheticRole(random));
+            }
+        },
+        LIST_ROLES("GET /api/roles", 5) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/roles?limit=50&after=" + random.nextInt(ROLES));
+            }
+        },
+        GET_PERMISSION("GET /api/permissions/{id}", 10) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/permissions/" + (1 + random.nextInt(PERMISSIONS)));
+            }
+        },
+        LIST_PERMISSIONS("GET /api/permissions", 5) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/permissions?limit=50&after=" + random.nextInt(PERMISSIONS));
+            }
+        },
+        CURRENT_USER("GET /api/auth/current-user", 11) {
+            @Override
+            HttpRequest request(Random random) {
+                return get("/api/auth/current-user");
+            }
+        },
+        LOGIN("POST /api/auth/login", 0) {
+            @Override
+            HttpRequest request(Random random) throws Exception {
+                int userId = syntheticUser(random);
+                return loginRequest(String.format("user%08d", userId), "password" + (userId % 16));
+            }
+        },
+        ASSIGN_ROLE("POST /api/users/{userId}/roles/{roleId}", 3) {
+            @Override
+            HttpRequest request(Random random) {
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + syntheticUser(random)
+                                + "/roles/" + syntheticRole(random)))
+                        .header("Cookie", adminCookie).POST(HttpRequest.BodyPublishers.noBody()).build();
+            }
+        },
+        REMOVE_ROLE("DELETE /api/users/{userId}/roles/{roleId}", 3) {
+            @Override
+            HttpRequest request(Random random) {
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + syntheticUser(random)
+                                + "/roles/" + syntheticRole(random)))
+                        .header("Cookie", adminCookie).DELETE().build();
+            }
+        };
+
+        private static final Operation[] BY_WEIGHT = byWeight();
+
+        final String name;
+        final int weight;
+
+        Operation(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+
+        abstract HttpRequest request(Random random) throws Exception;
+
+        static Operation next(Random random) {
+            return BY_WEIGHT[random.nextInt(BY_WEIGHT.length)];
+        }
+
+        private static Operation[] byWeight() {
+            List<Operation> slots = new ArrayList<>();
+            for (Operation operation : values()) {
+                for (int i = 0; i < operation.weight; i++) {
+                    slots.add(operation);
+                }
+            }
+            return slots.toArray(new Operation[0]);
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.daisyPig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 @MapperScan("com.daisyPig.mapper")
 public class ApplicationStarter {
     public static void main(String[] args) {
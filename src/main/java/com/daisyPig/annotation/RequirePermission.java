@@ -1,12 +1,25 @@
 package com.daisyPig.annotation;
 
+import org.springframework.core.annotation.AliasFor;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
-@Target(ElementType.METHOD)
+/**
+ * 声明访问接口所需的权限。
+ * 可以标注在方法上，也可以标注在控制器类上作为该类所有接口的默认要求，方法上的注解优先。
+ * 启动时由 RouteAuthorizationTable 统一编译，请求处理时不再反射读取。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface RequirePermission {
-    String value();  // 权限名称
-}
\ No newline at end of file
+    @AliasFor("allOf")
+    String[] value() default {};  // 权限名称，等同于 allOf
+
+    @AliasFor("value")
+    String[] allOf() default {};  // 必须同时具备的权限
+
+    String[] anyOf() default {};  // 至少具备其中之一的权限
+}
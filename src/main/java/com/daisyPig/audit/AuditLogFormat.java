@@ -0,0 +1,46 @@
+package com.daisyPig.audit;
+
+/**
+ * 审计日志段文件的二进制格式。
+ * 文件头 16B：[魔数 4B][格式版本 2B][保留 2B][段序号 8B]，之后是连续的记录，每条记录以类型字节开头：
+ * <ul>
+ *     <li>ROUTE：[类型 1B][接口ID 4B][接口名 UTF][权限要求 UTF]，每个段开头重新写出全部已知接口，段文件可单独解码</li>
+ *     <li>DECISION：[类型 1B][时间戳毫秒 8B][用户ID 4B][接口ID 4B][结果 1B]</li>
+ * </ul>
+ * 段文件按固定大小预先映射，未写入的部分全为 0，读到类型 0 即为段尾。UTF 为 [字节数 2B][UTF-8 字节]。
+ */
+public final class AuditLogFormat {
+    public static final int MAGIC = 0x52424155; // "RBAU"
+    public static final short VERSION = 1;
+    public static final int HEADER_LENGTH = 16;
+
+    public static final byte TYPE_END = 0;
+    public static final byte TYPE_ROUTE = 1;
+    public static final byte TYPE_DECISION = 2;
+    public static final int DECISION_LENGTH = 1 + 8 + 4 + 4 + 1;
+    // 接口名和权限要求写入时截断到该字节数
+    public static final int MAX_TEXT_LENGTH = 1024;
+
+    public static final byte OUTCOME_ALLOWED = 1;
+    public static final byte OUTCOME_DENIED = 2;
+    public static final byte OUTCOME_UNAUTHENTICATED = 3;
+
+    public static final String FILE_PREFIX = "audit-";
+    public static final String FILE_SUFFIX = ".seg";
+
+    private AuditLogFormat() {
+    }
+
+    public static String fileName(long segmentIndex) {
+        return String.format("%s%012d%s", FILE_PREFIX, segmentIndex, FILE_SUFFIX);
+    }
+
+    public static String outcomeName(byte outcome) {
+        return switch (outcome) {
+            case OUTCOME_ALLOWED -> "allowed";
+            case OUTCOME_DENIED -> "denied";
+            case OUTCOME_UNAUTHENTICATED -> "unauthenticated";
+            default -> "unknown(" + outcome + ")";
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.daisyPig.audit;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 审计日志段文件的解码器，同时提供按条件过滤输出的命令行入口：
+ * <pre>
+ * java -cp RBAC-Model.jar -Dloader.main=com.daisyPig.audit.AuditLogReader \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher \
+ *      audit [--user 5] [--outcome denied] [--handler UserController] [--from 2026-01-01T00:00:00Z] [--to ...]
+ * </pre>
+ * 参数可以是单个段文件，也可以是目录（按段序号依次读取其中全部段文件）。
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * 按写入顺序解码文件或目录中的全部审计记录。
+     */
+    public static void read(Path path, Consumer<AuditRecord> consumer) throws IOException {
+        if (Files.isDirectory(path)) {
+            for (Path segment : segments(path)) {
+                readSegment(segment, consumer);
+            }
+        } else {
+            readSegment(path, consumer);
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            // 文件名中的段序号定长补零，字典序即写入顺序
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(AuditLogFormat.FILE_PREFIX) && name.endsWith(AuditLogFormat.FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void readSegment(Path segment, Consumer<AuditRecord> consumer) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < AuditLogFormat.HEADER_LENGTH || buffer.getInt() != AuditLogFormat.MAGIC) {
+            throw new IOException("Not an audit segment: " + segment);
+        }
+        short version = buffer.getShort();
+        if (version != AuditLogFormat.VERSION) {
+            throw new IOException("Unsupported audit segment version " + version + ": " + segment);
+        }
+        buffer.getShort();
+        buffer.getLong();
+
+        Map<Integer, String[]> routes = new HashMap<>();
+        try {
+            while (buffer.hasRemaining()) {
+                byte type = buffer.get();
+                if (type == AuditLogFormat.TYPE_END) {
+                    break;
+                } else if (type == AuditLogFormat.TYPE_ROUTE) {
+                    int routeId = buffer.getInt();
+                    routes.put(routeId, new String[]{readText(buffer), readText(buffer)});
+                } else if (type == AuditLogFormat.TYPE_DECISION) {
+                    long timestamp = buffer.getLong();
+                    int userId = buffer.getInt();
+                    int routeId = buffer.getInt();
+                    byte outcome = buffer.get();
+                    String[] route = routes.getOrDefault(routeId, new String[]{"route#" + routeId, ""});
+                    consumer.accept(new AuditRecord(timestamp, userId, route[0], route[1], outcome));
+                } else {
+                    throw new IOException("Corrupt audit segment " + segment + " at offset " + (buffer.position() - 1));
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // 进程在写入一条记录的中途退出，末尾的残缺记录忽略
+        }
+    }
+
+    private static String readText(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogReader <segment-file-or-directory> [--user ID] [--outcome allowed|denied|unauthenticated]"
+                    + " [--handler TEXT] [--from ISO-INSTANT] [--to ISO-INSTANT]");
+            System.exit(2);
+        }
+        Predicate<AuditRecord> filter = record -> true;
+        for (int i = 1; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--user" -> {
+                    int userId = Integer.parseInt(value);
+                    filter = filter.and(record -> record.getUserId() == userId);
+                }
+                case "--outcome" -> filter = filter.and(record -> record.getOutcomeName().equalsIgnoreCase(value));
+                case "--handler" -> filter = filter.and(record -> record.getHandler().contains(value));
+                case "--from" -> {
+                    long from = Instant.parse(value).toEpochMilli();
+                    filter = filter.and(record -> record.getTimestamp() >= from);
+                }
+                case "--to" -> {
+                    long to = Instant.parse(value).toEpochMilli();
+                    filter = filter.and(record -> record.getTimestamp() < to);
+                }
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Predicate<AuditRecord> selected = filter;
+        read(Paths.get(args[0]), record -> {
+            if (selected.test(record)) {
+                System.out.println(record);
+            }
+        });
+    }
+}
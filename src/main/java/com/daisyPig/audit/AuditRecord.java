@@ -0,0 +1,58 @@
+package com.daisyPig.audit;
+
+import java.time.Instant;
+
+/**
+ * 解码后的一条鉴权决策审计记录。
+ */
+public final class AuditRecord {
+    private final long timestamp;
+    private final int userId;
+    private final String handler;
+    private final String requirement;
+    private final byte outcome;
+
+    public AuditRecord(long timestamp, int userId, String handler, String requirement, byte outcome) {
+        this.timestamp = timestamp;
+        this.userId = userId;
+        this.handler = handler;
+        this.requirement = requirement;
+        this.outcome = outcome;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 用户ID，未登录或令牌无效时为 -1。
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    /**
+     * 接口的权限要求，形如 allOf=user:view anyOf=。
+     */
+    public String getRequirement() {
+        return requirement;
+    }
+
+    public byte getOutcome() {
+        return outcome;
+    }
+
+    public String getOutcomeName() {
+        return AuditLogFormat.outcomeName(outcome);
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(timestamp) + " " + getOutcomeName() + " user=" + userId
+                + " handler=" + handler + " " + requirement;
+    }
+}
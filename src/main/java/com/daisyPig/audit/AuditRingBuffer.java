@@ -0,0 +1,104 @@
+package com.daisyPig.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 多生产者、单消费者的无锁环形缓冲区，保存鉴权决策事件。
+ * 槽位在创建时以并行数组的形式一次性分配，生产者只做一次 CAS 占位和几次数组写入，不分配对象、不加锁；
+ * 缓冲区满时直接丢弃事件并计数，从不阻塞请求线程。
+ * 每个槽位的序号在字段写完后以 release 语义发布，消费者看到序号后再读取字段。
+ */
+public final class AuditRingBuffer {
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] userIds;
+    private final int[] routeIds;
+    private final byte[] outcomes;
+    // 槽位已发布的序号，初始为 -1
+    private final AtomicLongArray published;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity 槽位数，向上取整为 2 的幂
+     */
+    public AuditRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.userIds = new int[size];
+        this.routeIds = new int[size];
+        this.outcomes = new byte[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * 写入一条事件。缓冲区已满时丢弃并返回 false。
+     */
+    public boolean offer(long timestamp, int userId, int routeId, byte outcome) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        timestamps[index] = timestamp;
+        userIds[index] = userId;
+        routeIds[index] = routeId;
+        outcomes[index] = outcome;
+        published.lazySet(index, sequence);
+        return true;
+    }
+
+    /**
+     * 由唯一的消费者线程调用：按写入顺序取出最多 limit 条已发布的事件，返回取出的条数。
+     * 某个槽位已被占用但尚未发布时在此停止，下次再从该位置继续。
+     */
+    public int drain(Consumer consumer, int limit) {
+        long sequence = head.get();
+        int count = 0;
+        while (count < limit) {
+            int index = (int) sequence & mask;
+            if (published.get(index) != sequence) {
+                break;
+            }
+            consumer.accept(timestamps[index], userIds[index], routeIds[index], outcomes[index]);
+            sequence++;
+            count++;
+        }
+        if (count > 0) {
+            head.lazySet(sequence);
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 已写入但尚未被消费的事件数（近似值）。
+     */
+    public long size() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long timestamp, int userId, int routeId, byte outcome);
+    }
+}
@@ -0,0 +1,161 @@
+package com.daisyPig.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 把审计记录顺序写入内存映射的段文件，写满后切换到下一个段。
+ * 只由审计写线程使用，非线程安全。写入只是内存拷贝，由操作系统异步刷盘；进程崩溃不丢数据，
+ * 操作系统崩溃时最多丢失上次 force 之后的记录。
+ */
+public final class AuditSegmentWriter implements Closeable {
+    private final Path directory;
+    private final int segmentSize;
+    // 下标为接口ID，切换段时全部重新写出
+    private final List<byte[][]> routes = new ArrayList<>();
+
+    private long segmentIndex;
+    private MappedByteBuffer buffer;
+
+    public AuditSegmentWriter(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < 64 * 1024) {
+            throw new IllegalArgumentException("Audit segment size must be at least 64KB: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        // 重启后从已有段的下一个序号开始，不覆盖旧文件
+        segmentIndex = lastSegmentIndex(directory) + 1;
+        open();
+    }
+
+    private static long lastSegmentIndex(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(AuditLogFormat.FILE_PREFIX) && name.endsWith(AuditLogFormat.FILE_SUFFIX))
+                    .mapToLong(name -> {
+                        try {
+                            return Long.parseLong(name.substring(AuditLogFormat.FILE_PREFIX.length(),
+                                    name.length() - AuditLogFormat.FILE_SUFFIX.length()));
+                        } catch (NumberFormatException e) {
+                            return -1;
+                        }
+                    })
+                    .max()
+                    .orElse(-1);
+        }
+    }
+
+    public boolean isDefined(int routeId) {
+        return routeId < routes.size() && routes.get(routeId) != null;
+    }
+
+    /**
+     * 登记接口ID对应的接口名和权限要求，并写入当前段。
+     */
+    public void defineRoute(int routeId, String handler, String requirement) throws IOException {
+        byte[][] route = {utf8(handler), utf8(requirement)};
+        while (routes.size() <= routeId) {
+            routes.add(null);
+        }
+        routes.set(routeId, route);
+        if (!ensureCapacity(routeLength(route))) {
+            writeRoute(routeId, route);
+        }
+    }
+
+    public void append(long timestamp, int userId, int routeId, byte outcome) throws IOException {
+        ensureCapacity(AuditLogFormat.DECISION_LENGTH);
+        buffer.put(AuditLogFormat.TYPE_DECISION);
+        buffer.putLong(timestamp);
+        buffer.putInt(userId);
+        buffer.putInt(routeId);
+        buffer.put(outcome);
+    }
+
+    /**
+     * 把当前段已写入的内容刷到磁盘。
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    public Path currentSegment() {
+        return directory.resolve(AuditLogFormat.fileName(segmentIndex));
+    }
+
+    @Override
+    public void close() {
+        force();
+        buffer = null;
+    }
+
+    // 剩余空间不足时切换到新段（新段开头已包含全部接口定义），返回是否发生了切换
+    private boolean ensureCapacity(int length) throws IOException {
+        if (buffer.remaining() >= length) {
+            return false;
+        }
+        force();
+        segmentIndex++;
+        open();
+        return true;
+    }
+
+    private void open() throws IOException {
+        Path file = currentSegment();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射在通道关闭后仍然有效
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.putInt(AuditLogFormat.MAGIC);
+        buffer.putShort(AuditLogFormat.VERSION);
+        buffer.putShort((short) 0);
+        buffer.putLong(segmentIndex);
+        for (int routeId = 0; routeId < routes.size(); routeId++) {
+            byte[][] route = routes.get(routeId);
+            if (route != null) {
+                if (buffer.remaining() < routeLength(route)) {
+                    throw new IOException("Audit segment too small for route definitions: " + file);
+                }
+                writeRoute(routeId, route);
+            }
+        }
+    }
+
+    private void writeRoute(int routeId, byte[][] route) {
+        buffer.put(AuditLogFormat.TYPE_ROUTE);
+        buffer.putInt(routeId);
+        for (byte[] text : route) {
+            buffer.putShort((short) text.length);
+            buffer.put(text);
+        }
+    }
+
+    private static int routeLength(byte[][] route) {
+        return 1 + 4 + 2 + route[0].length + 2 + route[1].length;
+    }
+
+    private static byte[] utf8(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= AuditLogFormat.MAX_TEXT_LENGTH) {
+            return bytes;
+        }
+        // 按字符截断，避免切断多字节字符
+        int end = text.length();
+        while (bytes.length > AuditLogFormat.MAX_TEXT_LENGTH) {
+            end = end * AuditLogFormat.MAX_TEXT_LENGTH / bytes.length;
+            bytes = text.substring(0, end).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+}
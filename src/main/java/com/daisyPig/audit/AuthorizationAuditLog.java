@@ -0,0 +1,178 @@
+package com.daisyPig.audit;
+
+import com.daisyPig.interceptor.RouteRequirement;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.method.HandlerMethod;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 鉴权决策审计日志：AuthInterceptor 的每次放行、拒绝都写入一条记录（用户ID、接口、权限要求、结果、时间）。
+ * 请求线程只把几个基本类型字段放进无锁环形缓冲区，不做 IO、不分配对象；
+ * 单独的写线程把缓冲区中的记录写入内存映射的段文件（AuditSegmentWriter），段文件用 AuditLogReader 解码。
+ * 缓冲区满时丢弃记录并计入 rbac.audit.dropped。
+ */
+@Slf4j
+@Component
+public class AuthorizationAuditLog {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rbac.audit.directory:audit}")
+    private Path directory;
+
+    @Value("${rbac.audit.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${rbac.audit.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${rbac.audit.flush-interval:1s}")
+    private Duration flushInterval;
+
+    // 接口ID在首次记录时分配；定义先放入队列再发布事件，写线程遇到未定义的接口ID时先处理队列
+    private final Map<Method, Integer> routeIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRouteId = new AtomicInteger();
+    private final Queue<RouteDefinition> pendingRoutes = new ConcurrentLinkedQueue<>();
+
+    private AuditRingBuffer ringBuffer;
+    private AuditSegmentWriter segmentWriter;
+    private AuditRingBuffer.Consumer appender;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        ringBuffer = new AuditRingBuffer(bufferCapacity);
+        segmentWriter = new AuditSegmentWriter(directory, (int) segmentSize.toBytes());
+        appender = this::append;
+
+        Gauge.builder("rbac.audit.buffer.size", ringBuffer, AuditRingBuffer::size)
+                .description("等待写入审计日志的记录数")
+                .register(meterRegistry);
+        FunctionCounter.builder("rbac.audit.dropped", ringBuffer, AuditRingBuffer::dropped)
+                .description("缓冲区已满而丢弃的审计记录数")
+                .register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::run, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Authorization audit log writing to {} ({} per segment, buffer {} records)",
+                segmentWriter.currentSegment(), segmentSize, ringBuffer.capacity());
+    }
+
+    public boolean isEnabled() {
+        return ringBuffer != null;
+    }
+
+    /**
+     * 记录一次鉴权决策。userId 在未登录或令牌无效时传 -1。
+     */
+    public void record(int userId, HandlerMethod handlerMethod, RouteRequirement requirement, byte outcome) {
+        if (ringBuffer == null) {
+            return;
+        }
+        ringBuffer.offer(System.currentTimeMillis(), userId, routeId(handlerMethod, requirement), outcome);
+    }
+
+    private int routeId(HandlerMethod handlerMethod, RouteRequirement requirement) {
+        Integer routeId = routeIds.get(handlerMethod.getMethod());
+        if (routeId != null) {
+            return routeId;
+        }
+        return routeIds.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            int id = nextRouteId.getAndIncrement();
+            pendingRoutes.add(new RouteDefinition(id,
+                    handlerMethod.getBeanType().getSimpleName() + "#" + method.getName(),
+                    "allOf=" + String.join(",", requirement.getAllOf()) + " anyOf=" + String.join(",", requirement.getAnyOf())));
+            return id;
+        });
+    }
+
+    private void run() {
+        long lastForce = System.nanoTime();
+        try {
+            while (running || ringBuffer.size() > 0) {
+                defineRoutes();
+                if (ringBuffer.drain(appender, 4096) > 0) {
+                    continue;
+                }
+                if (System.nanoTime() - lastForce >= flushInterval.toNanos()) {
+                    segmentWriter.force();
+                    lastForce = System.nanoTime();
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            segmentWriter.close();
+        } catch (Exception e) {
+            // 写线程退出后缓冲区很快写满，之后的记录计入 rbac.audit.dropped
+            log.error("Authorization audit writer stopped", e);
+        }
+    }
+
+    private void append(long timestamp, int userId, int routeId, byte outcome) {
+        try {
+            if (!segmentWriter.isDefined(routeId)) {
+                defineRoutes();
+            }
+            segmentWriter.append(timestamp, userId, routeId, outcome);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to rotate audit segment", e);
+        }
+    }
+
+    private void defineRoutes() throws IOException {
+        RouteDefinition route;
+        while ((route = pendingRoutes.poll()) != null) {
+            segmentWriter.defineRoute(route.id, route.handler, route.requirement);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // 写线程把缓冲区中剩余的记录写完后刷盘退出
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static final class RouteDefinition {
+        private final int id;
+        private final String handler;
+        private final String requirement;
+
+        RouteDefinition(int id, String handler, String requirement) {
+            this.id = id;
+            this.handler = handler;
+            this.requirement = requirement;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.daisyPig.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 角色、权限目录接口的响应缓存：保存序列化好的 JSON 字节和强 ETag。
+ * 缓存条目带有写入时的目录版本号，PermissionService / RoleService 每次写入在事务提交后递增版本号，
+ * 旧版本的条目随即失效。命中时直接返回字节，If-None-Match 匹配时返回 304，都不访问数据库也不经过 Jackson。
+ * ETag 取自响应内容的摘要，内容未变的接口在版本号变化后、重启后或其它实例上仍得到相同的 ETag。
+ * 版本号只在本实例内有效，其它实例的写入不会使本实例的条目失效，因此条目另外在写入
+ * rbac.catalog-response-cache.expire-after-write 后过期：其它实例的写入最迟在
+ * rbac.catalog.reload-interval 与该过期时间之和后反映到本实例的响应和 ETag 中。
+ */
+@Component
+public class CatalogResponseCache {
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.catalog-response-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    // 不应长于 rbac.auth-cache.expire-after-write，否则目录响应比鉴权数据更晚反映其它实例的写入
+    @Value("${rbac.catalog-response-cache.expire-after-write:30s}")
+    private Duration expireAfterWrite;
+
+    Ticker ticker = Ticker.systemTicker();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private Cache<String, Entry> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "rbac.catalog-response");
+    }
+
+    /**
+     * 返回 key 对应的响应：缓存的条目属于当前版本时直接使用，否则调用 loader 查询并序列化后缓存。
+     * ifNoneMatch 与 ETag 匹配时返回不带响应体的 304。
+     */
+    public ResponseEntity<byte[]> respond(String key, String ifNoneMatch, Supplier<?> loader) {
+        // 先取版本号再查询：查询期间发生的写入会递增版本号，本次结果只会以旧版本号缓存，不会被当作新数据返回
+        long current = version.get();
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null || entry.version != current) {
+            entry = serialize(current, loader.get());
+            cache.put(key, entry);
+        }
+        if (matches(ifNoneMatch, entry.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(entry.etag)
+                    .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(entry.etag)
+                .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+                .body(entry.body);
+    }
+
+    /**
+     * 在当前事务提交后递增版本号，使全部缓存的响应失效；没有事务时立即生效。
+     * 需要在 RbacCatalog.refresh() 之后调用，保证新版本读到的是重新加载后的目录。
+     */
+    public void invalidate() {
+        TransactionHooks.afterCommit(version::incrementAndGet);
+    }
+
+    private Entry serialize(long version, Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return new Entry(version, bytes, etag(bytes));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // If-None-Match 可以是 *、单个或逗号分隔的多个 ETag，按弱比较忽略 W/ 前缀
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final byte[] body;
+        private final String etag;
+
+        Entry(long version, byte[] body, String etag) {
+            this.version = version;
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.daisyPig.cache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 用户权限的编译形式：有序的角色ID数组 + 以内部权限ID为下标的位图。
+ * 实例创建后不可变，可以在多个请求线程之间无锁共享。
+ */
+public final class CompiledPermissions {
+    public static final CompiledPermissions EMPTY = new CompiledPermissions(new int[0], new long[0], 0L);
+
+    private final int[] roleIds;
+    private final long[] bits;
+    // 开始加载时的授权模型版本，用于识别加载期间发生过角色变更的条目
+    private final long version;
+
+    private CompiledPermissions(int[] roleIds, long[] bits, long version) {
+        this.roleIds = roleIds;
+        this.bits = bits;
+        this.version = version;
+    }
+
+    public static CompiledPermissions of(int[] roleIds, BitSet permissionIds) {
+        return of(roleIds, permissionIds, 0L);
+    }
+
+    static CompiledPermissions of(int[] roleIds, BitSet permissionIds, long version) {
+        int[] sorted = roleIds.clone();
+        Arrays.sort(sorted);
+        return new CompiledPermissions(sorted, permissionIds.toLongArray(), version);
+    }
+
+    /**
+     * 由位图掩码还原权限集合（例如访问令牌中携带的掩码），不包含角色信息。
+     */
+    public static CompiledPermissions ofMask(long[] bits) {
+        return new CompiledPermissions(new int[0], bits.clone(), 0L);
+    }
+
+    /**
+     * 以内部权限ID为下标的位图，末尾不含全零的字。
+     */
+    public long[] toLongArray() {
+        return bits.clone();
+    }
+
+    /**
+     * 判断是否拥有指定内部ID的权限。
+     */
+    public boolean has(int permissionId) {
+        if (permissionId < 0) {
+            return false;
+        }
+        int word = permissionId >>> 6;
+        return word < bits.length && (bits[word] & (1L << permissionId)) != 0;
+    }
+
+    /**
+     * 判断是否拥有掩码中的全部权限。
+     */
+    public boolean containsAll(long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            long word = i < bits.length ? bits[i] : 0L;
+            if ((word & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断是否拥有掩码中的任意一个权限。
+     */
+    public boolean intersects(long[] mask) {
+        int length = Math.min(mask.length, bits.length);
+        for (int i = 0; i < length; i++) {
+            if ((bits[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断编译时用户是否拥有指定角色，用于角色变更时的精确失效。
+     */
+    public boolean hasRole(int roleId) {
+        return Arrays.binarySearch(roleIds, roleId) >= 0;
+    }
+
+    int[] roleIds() {
+        return roleIds;
+    }
+
+    long version() {
+        return version;
+    }
+}
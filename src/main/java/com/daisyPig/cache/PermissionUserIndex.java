@@ -0,0 +1,284 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.entity.RolePermission;
+import com.daisyPig.entity.UserRole;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 权限 -> 角色 -> 用户 的内存反向索引，回答“哪些用户拥有某个权限”而无需多表联查。
+ * 每个权限保存拥有它的角色ID集合，每个角色保存持有它的用户ID集合，均为压缩位图（RoaringBitmap）；
+ * 查询时对相关角色的用户位图做一次 OR 得到结果，再按用户ID游标分页。
+ * 启动时从 user_roles、role_permissions 全量构建，之后由 UserService / RoleService / PermissionService
+ * 的写操作在事务提交后增量维护。位图不是线程安全的，读写通过读写锁保护。
+ * 其它实例的写操作不会触发本实例的增量维护，因此每 rbac.permission-index.rebuild-interval 全量重建一次并整体替换：
+ * 本实例的写入提交后立即可见，其它实例的写入最迟在一个重建间隔（加上重建耗时）后可见。
+ * 关联表上没有外键，构建时联表过滤掉指向已删除用户、角色或权限的残留关联。
+ */
+@Slf4j
+@Component
+public class PermissionUserIndex {
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+
+    // 构建索引时每条查询覆盖的用户ID区间长度
+    @Value("${rbac.permission-index.scan-range:10000}")
+    private int scanRange;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // 角色ID -> 持有该角色的用户ID
+    private final Map<Integer, RoaringBitmap> usersByRole = new HashMap<>();
+    // 权限ID -> 拥有该权限的角色ID
+    private final Map<Integer, RoaringBitmap> rolesByPermission = new HashMap<>();
+    // 重建期间发生的增量更新，替换快照后重放；不在重建时为 null。由写锁保护
+    private List<Runnable> pendingUpdates;
+
+    @PostConstruct
+    void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 定期全量重建，读取其它实例写入的角色分配、权限分配和删除。
+     */
+    @Scheduled(initialDelayString = "${rbac.permission-index.rebuild-interval:5m}",
+            fixedDelayString = "${rbac.permission-index.rebuild-interval:5m}")
+    public void rebuildPeriodically() {
+        rebuild();
+    }
+
+    // 串行化重建。读取数据库期间不持有锁，查询照常进行；替换时重放期间的增量更新，
+    // 避免本实例刚提交的变更被重建开始前读取的数据覆盖
+    synchronized void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            swap(load(), start);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Snapshot load() {
+        Map<Integer, RoaringBitmap> users = new HashMap<>();
+        int maxUserId = userRoleMapper.selectMaxUserId();
+        for (long after = 0; after < maxUserId; after += scanRange) {
+            for (UserRole userRole : userRoleMapper.selectByUserIdRange((int) after, (int) Math.min(maxUserId, after + scanRange))) {
+                users.computeIfAbsent(userRole.getRoleId(), k -> new RoaringBitmap()).add(userRole.getUserId());
+            }
+        }
+        Map<Integer, RoaringBitmap> roles = new HashMap<>();
+        for (RolePermission rolePermission : rolePermissionMapper.selectExistingLinks()) {
+            roles.computeIfAbsent(rolePermission.getPermissionId(), k -> new RoaringBitmap()).add(rolePermission.getRoleId());
+        }
+        users.values().forEach(RoaringBitmap::runOptimize);
+        return new Snapshot(users, roles);
+    }
+
+    private void swap(Snapshot snapshot, long start) {
+        lock.writeLock().lock();
+        try {
+            usersByRole.clear();
+            usersByRole.putAll(snapshot.usersByRole);
+            rolesByPermission.clear();
+            rolesByPermission.putAll(snapshot.rolesByPermission);
+            pendingUpdates.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long bytes = snapshot.usersByRole.values().stream().mapToLong(RoaringBitmap::getLongSizeInBytes).sum();
+        log.info("Permission user index built in {} ms: {} roles, {} permissions, {} KB",
+                (System.nanoTime() - start) / 1_000_000, snapshot.usersByRole.size(),
+                snapshot.rolesByPermission.size(), bytes / 1024);
+    }
+
+    /**
+     * 按用户ID游标分页返回拥有指定权限（数据库中的权限ID）的用户ID，升序。
+     */
+    public CursorPage<Integer> getUserIds(int permissionId, Integer after, int limit) {
+        RoaringBitmap userIds = usersWithPermission(permissionId);
+        PeekableIntIterator iterator = userIds.getIntIterator();
+        if (after != null) {
+            if (after == Integer.MAX_VALUE) {
+                return new CursorPage<>(List.of(), null);
+            }
+            iterator.advanceIfNeeded(Math.max(0, after + 1));
+        }
+        List<Integer> items = new ArrayList<>(Math.min(limit, userIds.getCardinality()));
+        while (items.size() < limit && iterator.hasNext()) {
+            items.add(iterator.next());
+        }
+        Integer nextAfter = iterator.hasNext() && !items.isEmpty() ? items.get(items.size() - 1) : null;
+        return new CursorPage<>(items, nextAfter);
+    }
+
+    // 各角色用户位图的并集，返回新的位图，调用方可以在锁外使用
+    private RoaringBitmap usersWithPermission(int permissionId) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap roleIds = rolesByPermission.get(permissionId);
+            if (roleIds == null || roleIds.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            List<RoaringBitmap> bitmaps = new ArrayList<>(roleIds.getCardinality());
+            for (int roleId : roleIds) {
+                RoaringBitmap userIds = usersByRole.get(roleId);
+                if (userIds != null) {
+                    bitmaps.add(userIds);
+                }
+            }
+            return FastAggregation.or(bitmaps.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 用户被分配了角色。userIds 与 roleIds 的每个组合都视为已存在（INSERT IGNORE 后的状态）。
+     */
+    public void addUserRoles(Collection<Integer> userIds, Collection<Integer> roleIds) {
+        TransactionHooks.afterCommit(() -> write(() -> {
+            for (Integer roleId : roleIds) {
+                RoaringBitmap users = usersByRole.computeIfAbsent(roleId, k -> new RoaringBitmap());
+                for (Integer userId : userIds) {
+                    users.add(userId);
+                }
+            }
+        }));
+    }
+
+    public void addUserRole(int userId, int roleId) {
+        addUserRoles(List.of(userId), List.of(roleId));
+    }
+
+    public void removeUserRole(int userId, int roleId) {
+        TransactionHooks.afterCommit(() -> write(() -> {
+            RoaringBitmap users = usersByRole.get(roleId);
+            if (users != null) {
+                users.remove(userId);
+            }
+        }));
+    }
+
+    /**
+     * 用户被删除，UserService 在同一事务中删除了其角色关联。
+     */
+    public void removeUser(int userId) {
+        TransactionHooks.afterCommit(() -> write(() -> usersByRole.values().forEach(users -> users.remove(userId))));
+    }
+
+    /**
+     * 角色被分配了权限。permissionIds 中的每个关联都视为已存在。
+     */
+    public void addRolePermissions(int roleId, Collection<Integer> permissionIds) {
+        TransactionHooks.afterCommit(() -> write(() -> {
+            for (Integer permissionId : permissionIds) {
+                rolesByPermission.computeIfAbsent(permissionId, k -> new RoaringBitmap()).add(roleId);
+            }
+        }));
+    }
+
+    public void addRolePermission(int roleId, int permissionId) {
+        addRolePermissions(roleId, List.of(permissionId));
+    }
+
+    public void removeRolePermission(int roleId, int permissionId) {
+        TransactionHooks.afterCommit(() -> write(() -> {
+            RoaringBitmap roles = rolesByPermission.get(permissionId);
+            if (roles != null) {
+                roles.remove(roleId);
+            }
+        }));
+    }
+
+    /**
+     * 角色被删除，RoleService 在同一事务中删除了其用户和权限关联。
+     */
+    public void removeRole(int roleId) {
+        TransactionHooks.afterCommit(() -> write(() -> {
+            usersByRole.remove(roleId);
+            rolesByPermission.values().forEach(roles -> roles.remove(roleId));
+        }));
+    }
+
+    /**
+     * 权限被删除，PermissionService 在同一事务中删除了其角色关联。
+     */
+    public void removePermission(int permissionId) {
+        TransactionHooks.afterCommit(() -> write(() -> rolesByPermission.remove(permissionId)));
+    }
+
+    /**
+     * 从数据库读取持有该角色的全部用户并并入索引，用于按用户名批量分配角色（不返回用户ID）之后。
+     * 只做并集，读取期间增量加入的用户不会丢失；导入只新增关联，不涉及移除。
+     */
+    public void mergeRoleFromDatabase(int roleId) {
+        RoaringBitmap loaded = new RoaringBitmap();
+        int after = 0;
+        List<Integer> userIds;
+        do {
+            userIds = userRoleMapper.selectUserIdsByRoleId(roleId, after, scanRange);
+            for (Integer userId : userIds) {
+                loaded.add(userId);
+            }
+            if (!userIds.isEmpty()) {
+                after = userIds.get(userIds.size() - 1);
+            }
+        } while (userIds.size() == scanRange);
+        loaded.runOptimize();
+        write(() -> usersByRole.computeIfAbsent(roleId, k -> new RoaringBitmap()).or(loaded));
+    }
+
+    private void write(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<Integer, RoaringBitmap> usersByRole;
+        private final Map<Integer, RoaringBitmap> rolesByPermission;
+
+        Snapshot(Map<Integer, RoaringBitmap> usersByRole, Map<Integer, RoaringBitmap> rolesByPermission) {
+            this.usersByRole = usersByRole;
+            this.rolesByPermission = rolesByPermission;
+        }
+    }
+}
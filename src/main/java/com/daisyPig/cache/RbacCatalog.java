@@ -0,0 +1,224 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.Role;
+import com.daisyPig.mapper.PermissionMapper;
+import com.daisyPig.mapper.RoleMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 角色与权限目录的内存副本。
+ * roles、permissions 两张表数据量很小且很少变化，启动时整体加载为不可变快照，
+ * 读取只访问内存；PermissionService / RoleService 写入后在事务提交时重新加载并原子替换快照。
+ * 其它实例的写入不会触发本实例重新加载，因此另外每 rbac.catalog.reload-interval 定期重新加载一次：
+ * 本实例的写入提交后立即可见，其它实例的写入最迟在一个重新加载间隔后可见。
+ */
+@Slf4j
+@Component
+public class RbacCatalog {
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    // 权限名称 -> 稠密的内部ID，只增不减，保证已编译的位图和路由掩码始终有效
+    private final ConcurrentHashMap<String, Integer> permissionIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPermissionId = new AtomicInteger();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    void warmUp() {
+        reload();
+        log.info("RBAC catalog loaded: {} roles, {} permissions",
+                snapshot.roles.size(), snapshot.permissions.size());
+    }
+
+    public List<Role> getRoles() {
+        List<Role> roles = snapshot.roles;
+        List<Role> copies = new ArrayList<>(roles.size());
+        for (Role role : roles) {
+            copies.add(copy(role));
+        }
+        return copies;
+    }
+
+    /**
+     * 按ID游标分页读取角色，可按名称前缀过滤。
+     */
+    public CursorPage<Role> getRolesPage(Integer after, int limit, String namePrefix) {
+        return page(snapshot.roles, Role::getId, Role::getRoleName, after, limit, namePrefix, RbacCatalog::copy);
+    }
+
+    public Role getRole(int roleId) {
+        return copy(snapshot.rolesById.get(roleId));
+    }
+
+    public Role getRoleByName(String roleName) {
+        return copy(snapshot.rolesByName.get(roleName));
+    }
+
+    public List<Permission> getPermissions() {
+        List<Permission> permissions = snapshot.permissions;
+        List<Permission> copies = new ArrayList<>(permissions.size());
+        for (Permission permission : permissions) {
+            copies.add(copy(permission));
+        }
+        return copies;
+    }
+
+    /**
+     * 按ID游标分页读取权限，可按名称前缀过滤。
+     */
+    public CursorPage<Permission> getPermissionsPage(Integer after, int limit, String namePrefix) {
+        return page(snapshot.permissions, Permission::getId, Permission::getPermissionName,
+                after, limit, namePrefix, RbacCatalog::copy);
+    }
+
+    public Permission getPermission(int permissionId) {
+        return copy(snapshot.permissionsById.get(permissionId));
+    }
+
+    /**
+     * 返回权限名称对应的内部ID，名称首次出现时分配新ID。
+     * 路由上声明了但数据库中尚不存在的权限同样会分配ID，只是不会出现在任何用户的位图里。
+     */
+    public int permissionId(String permissionName) {
+        return permissionIds.computeIfAbsent(permissionName, name -> nextPermissionId.getAndIncrement());
+    }
+
+    /**
+     * 查找已分配的内部ID，不存在时返回 -1。
+     * 用于校验外部传入的权限名称，避免任意输入撑大内部ID表。
+     */
+    public int lookupPermissionId(String permissionName) {
+        Integer permissionId = permissionIds.get(permissionName);
+        return permissionId != null ? permissionId : -1;
+    }
+
+    /**
+     * 在当前事务提交后重新加载目录。
+     */
+    public void refresh() {
+        TransactionHooks.afterCommit(this::reload);
+    }
+
+    /**
+     * 定期重新加载，读取其它实例写入的角色和权限。
+     */
+    @Scheduled(initialDelayString = "${rbac.catalog.reload-interval:30s}", fixedDelayString = "${rbac.catalog.reload-interval:30s}")
+    public void reloadPeriodically() {
+        reload();
+    }
+
+    // 串行化重新加载，保证最后替换进去的快照是最后读取的数据
+    synchronized void reload() {
+        List<Role> roles = roleMapper.selectList(null);
+        List<Permission> permissions = permissionMapper.selectList(null);
+        roles.sort(Comparator.comparing(Role::getId));
+        permissions.sort(Comparator.comparing(Permission::getId));
+        for (Permission permission : permissions) {
+            permissionId(permission.getPermissionName());
+        }
+        snapshot = new Snapshot(roles, permissions);
+    }
+
+    // sorted 按ID升序，二分定位到 after 之后的第一条，再顺序取满一页
+    private static <T> CursorPage<T> page(List<T> sorted, ToIntFunction<T> id, Function<T, String> name,
+                                          Integer after, int limit, String namePrefix, Function<T, T> copier) {
+        int low = 0;
+        int high = sorted.size();
+        if (after != null) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (id.applyAsInt(sorted.get(mid)) <= after) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, sorted.size()));
+        Integer nextAfter = null;
+        int lastId = 0;
+        for (int i = low; i < sorted.size(); i++) {
+            T item = sorted.get(i);
+            if (namePrefix != null && !name.apply(item).startsWith(namePrefix)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                nextAfter = lastId;
+                break;
+            }
+            items.add(copier.apply(item));
+            lastId = id.applyAsInt(item);
+        }
+        return new CursorPage<>(items, nextAfter);
+    }
+
+    private static Role copy(Role role) {
+        if (role == null) {
+            return null;
+        }
+        Role copy = new Role();
+        copy.setId(role.getId());
+        copy.setRoleName(role.getRoleName());
+        copy.setDescription(role.getDescription());
+        return copy;
+    }
+
+    private static Permission copy(Permission permission) {
+        if (permission == null) {
+            return null;
+        }
+        Permission copy = new Permission();
+        copy.setId(permission.getId());
+        copy.setPermissionName(permission.getPermissionName());
+        copy.setDescription(permission.getDescription());
+        return copy;
+    }
+
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(List.of(), List.of());
+
+        final List<Role> roles;
+        final Map<Integer, Role> rolesById;
+        final Map<String, Role> rolesByName;
+        final List<Permission> permissions;
+        final Map<Integer, Permission> permissionsById;
+
+        Snapshot(List<Role> roles, List<Permission> permissions) {
+            Map<Integer, Role> rolesById = new HashMap<>();
+            Map<String, Role> rolesByName = new HashMap<>();
+            for (Role role : roles) {
+                rolesById.put(role.getId(), role);
+                rolesByName.put(role.getRoleName(), role);
+            }
+            Map<Integer, Permission> permissionsById = new HashMap<>();
+            for (Permission permission : permissions) {
+                permissionsById.put(permission.getId(), permission);
+            }
+            this.roles = List.copyOf(roles);
+            this.rolesById = Map.copyOf(rolesById);
+            this.rolesByName = Map.copyOf(rolesByName);
+            this.permissions = List.copyOf(permissions);
+            this.permissionsById = Map.copyOf(permissionsById);
+        }
+    }
+}
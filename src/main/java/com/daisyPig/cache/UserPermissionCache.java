@@ -0,0 +1,305 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.dto.RolePermissionRow;
+import com.daisyPig.dto.SessionPrincipal;
+import com.daisyPig.entity.UserRole;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户ID -> 编译后权限集合的有界缓存。
+ * 命中时权限校验只是一次无锁的哈希查找加一次位运算，不访问数据库；
+ * 用户、角色、权限的变更由对应的 Service 在事务提交后精确失效。
+ * 失效时正在加载的条目看不到这次失效，条目因此记录开始加载时的模型版本，读取时发现早于相关失效的条目会重新加载。
+ */
+@Component
+public class UserPermissionCache {
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.auth-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${rbac.auth-cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+
+    // 批量加载时每条 IN 查询携带的最大ID数量
+    @Value("${rbac.auth-cache.batch-size:1000}")
+    private int batchSize;
+
+    // 会话主体、访问令牌中的权限位图自生成起的可信时长。模型版本只在本实例内递增，
+    // 其它实例的撤销不会使位图失效，超过该时长后改为按用户ID读取缓存
+    @Value("${rbac.auth-cache.mask-max-age:1m}")
+    private Duration maskMaxAge;
+
+    Clock clock = Clock.systemUTC();
+
+    Ticker ticker = Ticker.systemTicker();
+
+    private LoadingCache<Integer, CompiledPermissions> cache;
+
+    // 授权模型版本：任何失效发生后递增，访问令牌据此判断其中的权限掩码是否仍然有效。
+    // 初始值随机，其它实例签发的令牌版本不会碰巧相等，内部权限ID的编号因此无需跨实例一致
+    private final AtomicLong modelVersion = new AtomicLong(new SecureRandom().nextLong() & 0x7fffffff00000000L);
+
+    // 角色ID -> 最近一次失效时的模型版本；早于该版本加载、且持有该角色的条目已过时
+    private final Map<Integer, Long> roleInvalidatedAt = new ConcurrentHashMap<>();
+    // 用户ID -> 最近一次失效时的模型版本；早于该版本加载的该用户条目已过时。
+    // 用户数量大，记录在条目过期后便没有意义，按缓存过期时间的两倍淘汰（覆盖加载耗时）
+    private Cache<Integer, Long> userInvalidatedAt;
+    // 最近一次用户、角色或全部失效时的模型版本，版本不早于它的条目无需逐个检查
+    private final AtomicLong lastInvalidation = new AtomicLong();
+    private final AtomicLong lastFullInvalidation = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        userInvalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite.multipliedBy(2))
+                .build();
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public CompiledPermissions load(Integer userId) {
+                        // 单个加载与批量加载走同一条路径，避免按 角色 × 权限 展开的多表联查
+                        return loadBatch(Set.of(userId)).get(userId);
+                    }
+
+                    @Override
+                    public Map<Integer, CompiledPermissions> loadAll(Set<? extends Integer> userIds) {
+                        return loadBatch(userIds);
+                    }
+                });
+        // 命中率、驱逐次数、加载耗时以 cache.* 指标导出，标签 cache=rbac.auth-cache
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "rbac.auth-cache");
+    }
+
+    /**
+     * 判断用户是否拥有指定名称的权限。
+     */
+    public boolean hasPermission(int userId, String permissionName) {
+        return get(userId).has(rbacCatalog.permissionId(permissionName));
+    }
+
+    public CompiledPermissions get(int userId) {
+        CompiledPermissions permissions = cache.get(userId);
+        if (isStale(userId, permissions)) {
+            cache.asMap().remove(userId, permissions);
+            permissions = cache.get(userId);
+        }
+        return permissions;
+    }
+
+    /**
+     * 批量获取多个用户的编译权限，未命中的用户通过固定次数的批量查询一次性加载。
+     */
+    public Map<Integer, CompiledPermissions> getAll(Collection<Integer> userIds) {
+        Map<Integer, CompiledPermissions> result = cache.getAll(userIds);
+        List<Integer> stale = new ArrayList<>();
+        result.forEach((userId, permissions) -> {
+            if (isStale(userId, permissions) && cache.asMap().remove(userId, permissions)) {
+                stale.add(userId);
+            }
+        });
+        if (stale.isEmpty()) {
+            return result;
+        }
+        Map<Integer, CompiledPermissions> reloaded = new HashMap<>(result);
+        reloaded.putAll(cache.getAll(stale));
+        return reloaded;
+    }
+
+    /**
+     * 当前授权模型版本。签发令牌时必须先读取版本再读取权限，保证版本不会比权限更新。
+     */
+    public long getModelVersion() {
+        return modelVersion.get();
+    }
+
+    /**
+     * 返回登录主体当前应使用的权限：授权模型版本未变且位图生成不超过 mask-max-age 时直接使用位图，
+     * 否则（期间发生过本实例的授权变更、主体来自其它实例或位图已过时）按用户ID从缓存中读取。
+     * 其它实例的撤销不改变本实例的模型版本，最迟在 mask-max-age 与 expire-after-write 之和后生效。
+     */
+    public CompiledPermissions resolve(int userId, long modelVersion, long issuedAt, long[] permissions) {
+        long age = clock.millis() - issuedAt;
+        if (permissions != null && modelVersion == getModelVersion() && age >= 0 && age < maskMaxAge.toMillis()) {
+            return CompiledPermissions.ofMask(permissions);
+        }
+        return get(userId);
+    }
+
+    /**
+     * 为登录用户生成会话主体，记录当前授权模型版本和权限位图。
+     */
+    public SessionPrincipal principalOf(int userId) {
+        // 先读版本再读权限：期间发生的变更会使版本递增，不会出现“旧权限 + 新版本”
+        long version = getModelVersion();
+        return new SessionPrincipal(userId, version, clock.millis(), get(userId).toLongArray());
+    }
+
+    /**
+     * 用户的角色发生变化、用户被创建或删除时调用。
+     * 鉴权接口可能在用户创建前就以该ID查询过权限并缓存了空集合，新建用户同样需要失效。
+     */
+    public void invalidateUser(int userId) {
+        invalidateUsers(List.of(userId));
+    }
+
+    /**
+     * 批量失效多个用户，只递增一次模型版本，用于批量导入。
+     */
+    public void invalidateUsers(Collection<Integer> userIds) {
+        TransactionHooks.afterCommit(() -> {
+            // 与 invalidateRole 相同，先记录失效版本再清除，批量加载中的旧条目在读取时识别
+            long version = modelVersion.incrementAndGet();
+            for (Integer userId : userIds) {
+                userInvalidatedAt.asMap().merge(userId, version, Math::max);
+            }
+            lastInvalidation.accumulateAndGet(version, Math::max);
+            cache.invalidateAll(userIds);
+        });
+    }
+
+    /**
+     * 角色的权限发生变化或角色被删除时调用，只失效持有该角色的用户。
+     */
+    public void invalidateRole(int roleId) {
+        TransactionHooks.afterCommit(() -> {
+            // 先记录失效版本再清除：清除时看不到的加载中条目，在读取时按版本识别
+            long version = modelVersion.incrementAndGet();
+            roleInvalidatedAt.merge(roleId, version, Math::max);
+            lastInvalidation.accumulateAndGet(version, Math::max);
+            cache.asMap().values().removeIf(permissions -> permissions.hasRole(roleId));
+        });
+    }
+
+    /**
+     * 权限被修改或删除时调用。权限名称可能改变，无法精确定位，直接全部失效。
+     */
+    public void invalidateAll() {
+        TransactionHooks.afterCommit(() -> {
+            long version = modelVersion.incrementAndGet();
+            lastFullInvalidation.accumulateAndGet(version, Math::max);
+            lastInvalidation.accumulateAndGet(version, Math::max);
+            cache.invalidateAll();
+        });
+    }
+
+    // 条目在某次相关失效之前开始加载，可能包含失效前读取的数据
+    private boolean isStale(int userId, CompiledPermissions permissions) {
+        long version = permissions.version();
+        if (version >= lastInvalidation.get()) {
+            return false;
+        }
+        if (version < lastFullInvalidation.get()) {
+            return true;
+        }
+        Long userInvalidated = userInvalidatedAt.getIfPresent(userId);
+        if (userInvalidated != null && version < userInvalidated) {
+            return true;
+        }
+        for (int roleId : permissions.roleIds()) {
+            Long invalidatedAt = roleInvalidatedAt.get(roleId);
+            if (invalidatedAt != null && version < invalidatedAt) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 两条批量查询：user_roles 按用户ID，role_permissions 联表 permissions 按角色ID，超过 batchSize 时分段。
+    // 按权限名称分配内部ID，不依赖目录快照中是否已有该权限
+    private Map<Integer, CompiledPermissions> loadBatch(Set<? extends Integer> userIds) {
+        long version = modelVersion.get();
+        Map<Integer, List<Integer>> rolesByUser = new HashMap<>();
+        for (List<Integer> chunk : chunks(userIds)) {
+            for (UserRole userRole : userRoleMapper.getUserRolesByUserIds(chunk)) {
+                rolesByUser.computeIfAbsent(userRole.getUserId(), k -> new ArrayList<>()).add(userRole.getRoleId());
+            }
+        }
+
+        Set<Integer> roleIds = new HashSet<>();
+        rolesByUser.values().forEach(roleIds::addAll);
+        Map<Integer, BitSet> bitsByRole = new HashMap<>();
+        for (List<Integer> chunk : chunks(roleIds)) {
+            for (RolePermissionRow row : rolePermissionMapper.getPermissionNamesByRoleIds(chunk)) {
+                bitsByRole.computeIfAbsent(row.getRoleId(), k -> new BitSet())
+                        .set(rbacCatalog.permissionId(row.getPermissionName()));
+            }
+        }
+
+        Map<Integer, CompiledPermissions> result = new HashMap<>();
+        for (Integer userId : userIds) {
+            List<Integer> userRoleIds = rolesByUser.get(userId);
+            if (userRoleIds == null) {
+                result.put(userId, CompiledPermissions.of(new int[0], new BitSet(), version));
+                continue;
+            }
+            int[] roleIdArray = new int[userRoleIds.size()];
+            BitSet bits = new BitSet();
+            for (int i = 0; i < roleIdArray.length; i++) {
+                roleIdArray[i] = userRoleIds.get(i);
+                BitSet roleBits = bitsByRole.get(roleIdArray[i]);
+                if (roleBits != null) {
+                    bits.or(roleBits);
+                }
+            }
+            result.put(userId, CompiledPermissions.of(roleIdArray, bits, version));
+        }
+        return result;
+    }
+
+    private List<List<Integer>> chunks(Collection<? extends Integer> ids) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> current = new ArrayList<>(Math.min(ids.size(), batchSize));
+        for (Integer id : ids) {
+            current.add(id);
+            if (current.size() == batchSize) {
+                chunks.add(current);
+                current = new ArrayList<>(batchSize);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+}
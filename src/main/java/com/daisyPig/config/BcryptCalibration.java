@@ -0,0 +1,84 @@
+package com.daisyPig.config;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * bcrypt 代价（cost / strength）的选择结果。
+ * cost 每加 1 计算量翻倍，因此在较低代价下实测单次耗时后，按 log2 外推出最接近目标耗时的代价。
+ */
+public final class BcryptCalibration {
+    public static final int MIN_STRENGTH = 4;
+    public static final int MAX_STRENGTH = 31;
+
+    // 实测使用的代价，足够稳定又不会明显拖慢启动
+    private static final int MEASURE_STRENGTH = 8;
+    private static final int MEASURE_ROUNDS = 3;
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+    private final Duration estimatedHashTime;
+
+    private BcryptCalibration(int strength, Duration estimatedHashTime) {
+        this.strength = strength;
+        this.estimatedHashTime = estimatedHashTime;
+    }
+
+    /**
+     * 使用配置中固定的代价，不做实测。
+     */
+    public static BcryptCalibration fixed(int strength) {
+        if (strength < MIN_STRENGTH || strength > MAX_STRENGTH) {
+            throw new IllegalArgumentException("bcrypt strength must be between 4 and 31: " + strength);
+        }
+        return new BcryptCalibration(strength, null);
+    }
+
+    /**
+     * 在当前机器上实测 bcrypt 耗时，选择单次哈希耗时最接近 target 的代价。
+     */
+    public static BcryptCalibration calibrate(Duration target) {
+        String password = "calibration-password";
+        // 预热一次，避免把类加载和 JIT 的开销算进去
+        BCrypt.hashpw(password, BCrypt.gensalt(MEASURE_STRENGTH));
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(password, BCrypt.gensalt(MEASURE_STRENGTH));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return fromMeasurement(target, Math.max(best, 1));
+    }
+
+    static BcryptCalibration fromMeasurement(Duration target, long measuredNanos) {
+        double exact = MEASURE_STRENGTH + Math.log((double) target.toNanos() / measuredNanos) / Math.log(2);
+        int strength = (int) Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, Math.round(exact)));
+        long estimated = Math.round(measuredNanos * Math.pow(2, strength - MEASURE_STRENGTH));
+        return new BcryptCalibration(strength, Duration.ofNanos(estimated));
+    }
+
+    /**
+     * 解析已存储哈希中的代价，不是 bcrypt 哈希时返回 -1。
+     */
+    public static int strengthOf(String hash) {
+        if (hash == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT_PREFIX.matcher(hash);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * 按实测结果估算的单次哈希耗时，固定代价时为 null。
+     */
+    public Duration getEstimatedHashTime() {
+        return estimatedHashTime;
+    }
+}
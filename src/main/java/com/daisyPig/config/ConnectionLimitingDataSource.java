@@ -0,0 +1,123 @@
+package com.daisyPig.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 用公平信号量限制同时持有的连接数，许可数与连接池大小一致。
+ * 虚拟线程模式下并发请求数不再受 Tomcat 线程数约束，成千上万个请求会同时涌向连接池；
+ * 在这里按先来先到排队，等待超时后抛出 SQLTransientConnectionException，
+ * 排队长度和等待时间通过 rbac.jdbc.permits.* 指标暴露。连接关闭时归还许可，重复关闭只归还一次。
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private Timer acquireWait;
+
+    public ConnectionLimitingDataSource(DataSource targetDataSource, int maxConnections, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConnections, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    /**
+     * 注册排队长度、可用许可数和等待时间指标。
+     */
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("rbac.jdbc.permits.waiting", permits, Semaphore::getQueueLength)
+                .description("等待获取数据库连接的线程数")
+                .register(meterRegistry);
+        Gauge.builder("rbac.jdbc.permits.available", permits, Semaphore::availablePermits)
+                .description("剩余可获取的数据库连接数")
+                .register(meterRegistry);
+        acquireWait = Timer.builder("rbac.jdbc.permits.wait")
+                .description("获取数据库连接前的排队时间")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return limited(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 容器关闭时关闭被包装的连接池。
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        if (acquireWait != null) {
+            acquireWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new SQLTransientConnectionException("Timed out after "
+                    + TimeUnit.NANOSECONDS.toMillis(acquireTimeoutNanos) + "ms waiting for a database connection ("
+                    + permits.getQueueLength() + " waiting)");
+        }
+    }
+
+    private Connection limited(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            target.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.daisyPig.config;
+
+import com.daisyPig.mapper.SessionRecordMapper;
+import com.daisyPig.session.JdbcSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.DefaultCookieSerializer;
+
+import java.time.Duration;
+
+/**
+ * rbac.session.store=jdbc 时启用：会话保存在数据库 http_sessions 表中，多个实例共享，重启不丢失登录状态。
+ * 默认（memory）仍使用容器的内存会话。
+ */
+@Slf4j
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "rbac.session.store", havingValue = "jdbc")
+public class JdbcSessionConfig {
+
+    @Value("${rbac.session.touch-interval:60s}")
+    private Duration touchInterval;
+
+    @Value("${rbac.session.cleanup-batch-size:1000}")
+    private int cleanupBatchSize;
+
+    private JdbcSessionRepository sessionRepository;
+
+    @Bean
+    public JdbcSessionRepository sessionRepository(SessionRecordMapper sessionRecordMapper,
+                                                   ServerProperties serverProperties) {
+        // 与容器会话一致，使用 SessionConfig 中设置的超时时间
+        Duration timeout = serverProperties.getServlet().getSession().getTimeout();
+        sessionRepository = new JdbcSessionRepository(sessionRecordMapper, timeout, touchInterval);
+        return sessionRepository;
+    }
+
+    @Bean
+    public CookieSerializer cookieSerializer() {
+        // 沿用容器会话的 Cookie 名称和原始ID格式，登录接口返回的会话ID可以直接作为 Cookie 使用
+        DefaultCookieSerializer serializer = new DefaultCookieSerializer();
+        serializer.setCookieName("JSESSIONID");
+        serializer.setUseBase64Encoding(false);
+        return serializer;
+    }
+
+    @Scheduled(fixedDelayString = "${rbac.session.cleanup-interval:60s}")
+    public void cleanUpExpiredSessions() {
+        int deleted = sessionRepository.deleteExpired(cleanupBatchSize);
+        if (deleted > 0) {
+            log.info("Deleted {} expired sessions", deleted);
+        }
+    }
+}
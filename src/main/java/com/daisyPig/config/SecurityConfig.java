@@ -1,14 +1,39 @@
 package com.daisyPig.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.time.Duration;
+
+@Slf4j
 @Configuration
 public class SecurityConfig {
-    
+
+    // 固定代价，大于 0 时跳过启动校准；机型混杂的集群应固定代价，避免不同实例间来回重算哈希
+    @Value("${rbac.password.strength:0}")
+    private int strength;
+
+    // 启动校准的目标单次哈希耗时
+    @Value("${rbac.password.target-hash-time:250ms}")
+    private Duration targetHashTime;
+
+    @Bean
+    public BcryptCalibration bcryptCalibration() {
+        if (strength > 0) {
+            log.info("Using configured bcrypt strength {}", strength);
+            return BcryptCalibration.fixed(strength);
+        }
+        BcryptCalibration calibration = BcryptCalibration.calibrate(targetHashTime);
+        log.info("Calibrated bcrypt strength {} (estimated {} ms per hash, target {} ms)",
+                calibration.getStrength(), calibration.getEstimatedHashTime().toMillis(), targetHashTime.toMillis());
+        return calibration;
+    }
+
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(BcryptCalibration bcryptCalibration) {
+        return new BCryptPasswordEncoder(bcryptCalibration.getStrength());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.daisyPig.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * spring.threads.virtual.enabled=true 且运行在 Java 21 及以上时启用：Tomcat 请求在虚拟线程上处理。
+ * 连接池大小成为真正的并发上限，这里把数据源包装为 ConnectionLimitingDataSource，按连接池大小限流排队。
+ * bcrypt 计算不受影响：登录、注册和批量导入的哈希本来就在各自的平台线程池中执行，
+ * 不会长时间占住虚拟线程的载体线程。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) {
+                    return bean;
+                }
+                ConnectionLimitingDataSource limited = new ConnectionLimitingDataSource(hikari,
+                        hikari.getMaximumPoolSize(), Duration.ofMillis(hikari.getConnectionTimeout()));
+                meterRegistry.ifAvailable(limited::bindTo);
+                log.info("Virtual threads enabled, limiting concurrent connections of '{}' to {}",
+                        beanName, hikari.getMaximumPoolSize());
+                return limited;
+            }
+        };
+    }
+}
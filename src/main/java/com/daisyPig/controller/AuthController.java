@@ -1,15 +1,28 @@
 package com.daisyPig.controller;
 
+import com.daisyPig.cache.UserPermissionCache;
 import com.daisyPig.dto.ApiResponse;
 import com.daisyPig.dto.LoginRequest;
 import com.daisyPig.dto.RegisterRequest;
+import com.daisyPig.dto.SessionPrincipal;
 import com.daisyPig.entity.User;
+import com.daisyPig.service.AccessTokenService;
+import com.daisyPig.service.LoginBulkhead;
+import com.daisyPig.service.LoginThrottle;
 import com.daisyPig.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,8 +38,20 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginBulkhead loginBulkhead;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+
     /**
-     * 用户注册接口。
+     * 用户注册接口。在登录专用线程池中异步执行，不占用 Tomcat 工作线程。
      * 请求方式：POST
      * 接口路径：/api/auth/register
      * 参数：
@@ -34,42 +59,73 @@ public class AuthController {
      * 返回值：
      * - 若注册成功，返回包含成功消息 "注册成功" 以及注册用户信息的 ApiResponse<User> 对象。
      * - 若注册过程中出现异常，返回包含异常信息的错误响应。
+     * - 若登录专用线程池已满，返回 503 及错误消息 "服务繁忙，请稍后重试"。
      */
     @Operation(summary = "用户注册", description = "新用户注册接口，需要提供用户名、密码等信息")
     @PostMapping("/register")
-    public ApiResponse<User> register(@RequestBody RegisterRequest request) {
-        try {
-            User user = userService.register(request);
-            return ApiResponse.success("注册成功", user);
-        } catch (Exception e) {
-            return ApiResponse.error(e.getMessage());
-        }
+    public CompletableFuture<ApiResponse<User>> register(@RequestBody RegisterRequest request) {
+        return loginBulkhead.submit(() -> userService.register(request))
+                .handle((user, e) -> e == null
+                        ? ApiResponse.success("注册成功", user)
+                        : ApiResponse.error(unwrap(e).getMessage()));
     }
 
     /**
-     * 用户登录接口。
+     * 用户登录接口。在登录专用线程池中异步执行，不占用 Tomcat 工作线程。
      * 请求方式：POST
      * 接口路径：/api/auth/login
      * 参数：
-     * - @RequestBody LoginRequest request：包含用户登录信息的请求体，如用户名、密码等。
-     * - HttpSession session：用于存储登录用户信息的会话对象。
+     * - @RequestBody LoginRequest requestBody：包含用户登录信息的请求体，如用户名、密码等。
+     * - HttpServletRequest request：用于获取客户端地址（按用户名和客户端地址限制登录频率）以及存储登录用户信息的会话。
      * 返回值：
-     * - 若登录成功，将用户信息存入 session 中，并返回包含成功消息 "登录成功" 以及登录用户信息的 ApiResponse<String> 对象。
+     * - 若登录成功，将登录主体（用户ID、授权模型版本、权限位图）存入 session 中，并返回包含成功消息 "登录成功" 以及会话ID的 ApiResponse<String> 对象。
+     * - 若启用了令牌模式（rbac.token.enabled），不创建会话，返回签名的访问令牌，后续请求通过 "Authorization: Bearer 令牌" 携带。
      * - 若登录过程中出现异常，返回包含异常信息的错误响应。
+     * - 若登录专用线程池已满，返回 503 及错误消息 "服务繁忙，请稍后重试"。
+     * - 若该用户名或客户端地址的登录尝试过于频繁，在查库和密码校验之前直接返回 429。
      */
     @Operation(summary = "用户登录", description = "用户登录接口，登录成功后会在session中保存用户信息")
     @PostMapping("/login")
-    public ApiResponse<String> login(HttpSession session, @RequestBody LoginRequest requestBody ) {
-        try {
-            User user = userService.login(requestBody);
-            // 将用户信息存入session
-            session.setAttribute("currentUser", user);
-            System.out.println("login:session ID - " + session.getId());
-            return ApiResponse.success("登录成功", session.getId());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ApiResponse.error(e.getMessage());
-        }
+    public CompletableFuture<ApiResponse<String>> login(@RequestBody LoginRequest requestBody, HttpServletRequest request) {
+        loginThrottle.acquire(requestBody.getUsername(), request.getRemoteAddr());
+        // 令牌模式下不创建会话；会话在容器线程上获取，登录线程池中只写入属性
+        HttpSession session = accessTokenService.isEnabled() ? null : request.getSession();
+        return loginBulkhead.submit(() -> userService.login(requestBody))
+                .handle((user, e) -> {
+                    if (e != null) {
+                        return ApiResponse.error(unwrap(e).getMessage());
+                    }
+                    if (accessTokenService.isEnabled()) {
+                        return ApiResponse.success("登录成功", accessTokenService.issue(user.getId()));
+                    }
+                    // 会话中只保存鉴权需要的用户ID、授权模型版本和权限位图，不保存完整的 User
+                    session.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, userPermissionCache.principalOf(user.getId()));
+                    return ApiResponse.success("登录成功", session.getId());
+                });
+    }
+
+    /**
+     * 登录专用线程池已满时快速失败，返回 503 并提示客户端稍后重试，而不是让请求继续排队。
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResponse<Void> handleRejected(HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        return ApiResponse.error("服务繁忙，请稍后重试");
+    }
+
+    /**
+     * 登录尝试过于频繁时返回 429，并通过 Retry-After 告知客户端需要等待的秒数。
+     */
+    @ExceptionHandler(LoginThrottle.ThrottledException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ApiResponse<Void> handleThrottled(LoginThrottle.ThrottledException e, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        return ApiResponse.error(e.getMessage());
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 
     /**
@@ -84,7 +140,6 @@ public class AuthController {
     @GetMapping("/logout")
     public ApiResponse<Void> logout(HttpSession session) {
         try {
-            System.out.println("Before session invalidate, session ID: " + session.getId());
             session.invalidate();
         } catch (Exception e) {
             e.printStackTrace();
@@ -105,13 +160,13 @@ public class AuthController {
     @Operation(summary = "获取当前用户信息", description = "获取当前登录用户的详细信息，包括用户角色等")
     @GetMapping("/current-user")
     public ApiResponse<User> getCurrentUser(HttpSession session) {
-        User user = (User) session.getAttribute("currentUser");
-        if (user == null) {
+        Object principal = session.getAttribute(SessionPrincipal.SESSION_ATTRIBUTE);
+        if (!(principal instanceof SessionPrincipal sessionPrincipal)) {
             return ApiResponse.error("未登录");
         }
 
         // 获取完整的用户信息（包括角色）
-        User fullUser = userService.getUserWithRoles(user.getId());
+        User fullUser = userService.getUserWithRoles(sessionPrincipal.getUserId());
         return ApiResponse.success(fullUser);
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.daisyPig.controller;
+
+import com.daisyPig.annotation.RequirePermission;
+import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.dto.AuthzCheckRequest;
+import com.daisyPig.service.AuthorizationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 授权校验接口的控制器，供下游服务批量判断用户是否具备某项权限。
+ */
+@RestController
+@RequestMapping("/api/authz")
+@Tag(name = "授权校验", description = "供下游服务使用的批量权限校验API")
+public class AuthzController {
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    @Value("${rbac.authz.max-batch-size:10000}")
+    private int maxBatchSize;
+
+    /**
+     * 批量权限校验接口。
+     * 请求方式：POST
+     * 接口路径：/api/authz/check
+     * 权限要求：需要具备 "authz:check" 权限。
+     * 参数：@RequestBody AuthzCheckRequest request，包含若干 (userId, permission) 校验项。
+     * 返回值：ApiResponse<List<Boolean>>，按请求顺序返回每一项是否具备权限；校验项为空或超过上限时返回错误响应。
+     */
+    @Operation(summary = "批量权限校验", description = "批量判断用户是否具备指定权限，结果按请求顺序返回")
+    @PostMapping("/check")
+    @RequirePermission("authz:check")
+    public ApiResponse<List<Boolean>> check(
+        @Parameter(description = "校验项列表") @RequestBody AuthzCheckRequest request) {
+        List<AuthzCheckRequest.Check> checks = request.getChecks();
+        if (checks == null || checks.isEmpty()) {
+            return ApiResponse.error("校验项不能为空");
+        }
+        if (checks.size() > maxBatchSize) {
+            return ApiResponse.error("校验项数量不能超过 " + maxBatchSize);
+        }
+        return ApiResponse.success(authorizationService.check(checks));
+    }
+}
@@ -1,17 +1,20 @@
 package com.daisyPig.controller;
 
 import com.daisyPig.annotation.RequirePermission;
+import com.daisyPig.cache.CatalogResponseCache;
 import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.User;
 import com.daisyPig.service.PermissionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * 权限管理相关接口的控制器类，提供对权限的增删改查操作。
  */
@@ -22,18 +25,32 @@ public class PermissionController {
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
     /**
-     * 获取所有权限信息的接口。
+     * 分页获取权限信息的接口。
      * 请求方式：GET
-     * 接口路径：/api/permissions
+     * 接口路径：/api/permissions?after={id}&limit={n}
      * 权限要求：需要具备 "permission:view" 权限才能调用此接口。
-     * 返回值：返回一个包含所有权限信息列表的成功响应。响应数据类型为 ApiResponse<List<Permission>>，若出现异常会返回相应错误响应。
+     * 参数：
+     * - after：上一页返回的 nextAfter，首页不传。
+     * - limit：每页条数，默认 50，最大 500。
+     * - namePrefix：按权限名前缀过滤，可选。
+     * - If-None-Match：上次响应的 ETag，权限数据未变化时返回 304。
+     * 返回值：返回当前页权限以及下一页游标，响应体为 ApiResponse<CursorPage<Permission>> 的 JSON，带 ETag；若出现异常会返回相应错误响应。
      */
-    @Operation(summary = "获取所有权限", description = "获取系统中所有权限的列表信息")
+    @Operation(summary = "分页获取权限", description = "按ID游标分页获取权限列表，支持权限名前缀过滤；支持 ETag / If-None-Match")
     @GetMapping
     @RequirePermission("permission:view")
-    public ApiResponse<List<Permission>> getAllPermissions() {
-        return ApiResponse.success(permissionService.getAllPermissions());
+    public ResponseEntity<byte[]> getPermissions(
+        @Parameter(description = "上一页最后一个权限ID") @RequestParam(required = false) Integer after,
+        @Parameter(description = "每页条数") @RequestParam(defaultValue = "50") int limit,
+        @Parameter(description = "权限名前缀") @RequestParam(required = false) String namePrefix,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // 响应的 JSON 按查询参数缓存，权限变更后失效
+        return catalogResponseCache.respond("permissions?after=" + after + "&limit=" + limit + "&namePrefix=" + namePrefix,
+                ifNoneMatch, () -> ApiResponse.success(permissionService.getPermissions(after, limit, namePrefix)));
     }
 
     /**
@@ -58,6 +75,31 @@ public class PermissionController {
         return ApiResponse.success(permission);
     }
 
+    /**
+     * 分页获取拥有指定权限的用户的接口（经由任意角色）。
+     * 请求方式：GET
+     * 接口路径：/api/permissions/{id}/users?after={userId}&limit={n}
+     * 权限要求：需要同时具备 "permission:view" 和 "user:view" 权限才能调用此接口。
+     * 参数：
+     * - @PathVariable int id：要查询的权限的 ID。
+     * - after：上一页返回的 nextAfter，首页不传。
+     * - limit：每页条数，默认 50，最大 500。
+     * 返回值：返回当前页用户（按用户ID升序，不含密码）以及下一页游标，响应数据类型为 ApiResponse<CursorPage<User>>；
+     *         若权限不存在，返回错误响应，提示 "权限不存在"。
+     */
+    @Operation(summary = "分页获取拥有指定权限的用户", description = "按用户ID游标分页获取经由任意角色拥有该权限的用户")
+    @GetMapping("/{id}/users")
+    @RequirePermission(allOf = {"permission:view", "user:view"})
+    public ApiResponse<CursorPage<User>> getUsersWithPermission(
+        @Parameter(description = "权限ID") @PathVariable int id,
+        @Parameter(description = "上一页最后一个用户ID") @RequestParam(required = false) Integer after,
+        @Parameter(description = "每页条数") @RequestParam(defaultValue = "50") int limit) {
+        if (permissionService.getPermissionById(id) == null) {
+            return ApiResponse.error("权限不存在");
+        }
+        return ApiResponse.success(permissionService.getUsersWithPermission(id, after, limit));
+    }
+
     /**
      * 创建新权限的接口。
      * 请求方式：POST
@@ -1,56 +1,79 @@
 package com.daisyPig.controller;
 
 import com.daisyPig.annotation.RequirePermission;
+import com.daisyPig.cache.CatalogResponseCache;
 import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.entity.Role;
+import com.daisyPig.service.ResourceNotFoundException;
 import com.daisyPig.service.RoleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/roles")
+@RequirePermission("role:view") // 类级别默认权限要求，方法上的注解会覆盖它
 @Tag(name = "角色管理", description = "角色管理相关的API，包括角色的增删改查，以及角色权限的分配和移除等操作")
 public class RoleController {
     @Autowired
     private RoleService roleService;
 
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Value("${rbac.bulk.max-rows:100000}")
+    private int maxBulkRows;
+
     /**
-     * 获取所有角色的接口。
+     * 分页获取角色列表的接口。
      * 请求方式：GET
-     * 接口路径：/api/roles
-     * 权限要求：需要具备 "role:view" 权限。
-     * 返回值：ApiResponse<List<Role>>，返回包含所有角色列表的成功响应，若失败则返回错误响应。
+     * 接口路径：/api/roles?after={id}&limit={n}
+     * 权限要求：需要具备 "role:view" 权限（类级别默认要求）。
+     * 参数：after 为上一页返回的 nextAfter（首页不传）；limit 为每页条数，默认 50，最大 500；namePrefix 按角色名前缀过滤，可选；
+     * If-None-Match 为上次响应的 ETag，角色数据未变化时返回 304。
+     * 返回值：ApiResponse<CursorPage<Role>> 的 JSON，带 ETag，返回当前页角色以及下一页游标，若失败则返回错误响应。
      */
-    @Operation(summary = "获取所有角色", description = "获取系统中所有角色的列表信息")
+    @Operation(summary = "分页获取角色", description = "按ID游标分页获取角色列表，支持角色名前缀过滤；支持 ETag / If-None-Match")
     @GetMapping
-    @RequirePermission("role:view")
-    public ApiResponse<List<Role>> getAllRoles() {
-        return ApiResponse.success(roleService.getAllRoles());
+    public ResponseEntity<byte[]> getRoles(
+        @Parameter(description = "上一页最后一个角色ID") @RequestParam(required = false) Integer after,
+        @Parameter(description = "每页条数") @RequestParam(defaultValue = "50") int limit,
+        @Parameter(description = "角色名前缀") @RequestParam(required = false) String namePrefix,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponseCache.respond("roles?after=" + after + "&limit=" + limit + "&namePrefix=" + namePrefix,
+                ifNoneMatch, () -> ApiResponse.success(roleService.getRoles(after, limit, namePrefix)));
     }
 
     /**
      * 根据角色 ID 获取角色及其权限信息的接口。
      * 请求方式：GET
      * 接口路径：/api/roles/{id}
-     * 权限要求：需要具备 "role:view" 权限。
-     * 参数：@PathVariable int id，要获取信息的角色的 ID。
-     * 返回值：ApiResponse<Role>，若角色存在则返回包含该角色及其权限信息的成功响应，若角色不存在则返回错误响应，提示 "角色不存在"。
+     * 权限要求：需要具备 "role:view" 权限（类级别默认要求）。
+     * 参数：@PathVariable int id，要获取信息的角色的 ID；If-None-Match 为上次响应的 ETag，数据未变化时返回 304。
+     * 返回值：ApiResponse<Role> 的 JSON，带 ETag，若角色存在则返回包含该角色及其权限信息的成功响应，若角色不存在则返回错误响应，提示 "角色不存在"。
      */
-    @Operation(summary = "获取指定角色信息", description = "根据角色ID获取角色的详细信息，包括权限信息")
+    @Operation(summary = "获取指定角色信息", description = "根据角色ID获取角色的详细信息，包括权限信息；支持 ETag / If-None-Match")
     @GetMapping("/{id}")
-    @RequirePermission("role:view")
-    public ApiResponse<Role> getRoleWithPermissions(
-        @Parameter(description = "角色ID") @PathVariable int id) {
-        Role role = roleService.getRoleWithPermissions(id);
-        if (role == null) {
-            return ApiResponse.error("角色不存在");
-        }
-        return ApiResponse.success(role);
+    public ResponseEntity<byte[]> getRoleWithPermissions(
+        @Parameter(description = "角色ID") @PathVariable int id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponseCache.respond("roles/" + id, ifNoneMatch, () -> {
+            Role role = roleService.getRoleWithPermissions(id);
+            if (role == null) {
+                return ApiResponse.error("角色不存在");
+            }
+            return ApiResponse.success(role);
+        });
     }
 
     /**
@@ -112,16 +135,41 @@ public class RoleController {
      * 接口路径：/api/roles/{roleId}/permissions/{permissionId}
      * 权限要求：需要具备 "role:assign_permission" 权限。
      * 参数：@PathVariable int roleId，要添加权限的角色的 ID；@PathVariable int permissionId，要添加的权限的 ID。
-     * 返回值：ApiResponse<Void>，返回包含添加成功消息 "权限添加成功" 的成功响应，数据部分为 null，若失败则返回错误响应。
+     * 返回值：ApiResponse<Boolean>，返回包含添加成功消息 "权限添加成功" 的成功响应，数据部分表示是否新增了关联（已拥有该权限时为 false）；角色或权限不存在时返回 404。
      */
-    @Operation(summary = "为角色添加权限", description = "为指定角色添加一个权限")
+    @Operation(summary = "为角色添加权限", description = "为指定角色添加一个权限，重复添加是幂等的")
     @PostMapping("/{roleId}/permissions/{permissionId}")
     @RequirePermission("role:assign_permission")
-    public ApiResponse<Void> addPermissionToRole(
+    public ApiResponse<Boolean> addPermissionToRole(
         @Parameter(description = "角色ID") @PathVariable int roleId,
         @Parameter(description = "要添加的权限ID") @PathVariable int permissionId) {
-        roleService.addPermissionToRole(roleId, permissionId);
-        return ApiResponse.success("权限添加成功", null);
+        boolean changed = roleService.addPermissionToRole(roleId, permissionId);
+        return ApiResponse.success("权限添加成功", changed);
+    }
+
+    /**
+     * 批量为角色添加权限的接口。
+     * 请求方式：POST
+     * 接口路径：/api/roles/{roleId}/permissions
+     * 权限要求：需要具备 "role:assign_permission" 权限。
+     * 参数：@PathVariable int roleId，要添加权限的角色的 ID；@RequestBody List<Integer> permissionIds，要添加的权限 ID 列表。
+     * 返回值：ApiResponse<BulkResult>，返回新增与跳过（已存在）的关联数量；列表为空或数量超过上限时返回错误响应；
+     *         角色或任一权限不存在时返回 404 并列出不存在的ID，不添加任何权限。
+     */
+    @Operation(summary = "为角色批量添加权限", description = "在一个事务中为指定角色批量添加权限，已存在的关联会被跳过")
+    @PostMapping("/{roleId}/permissions")
+    @RequirePermission("role:assign_permission")
+    public ApiResponse<BulkResult> addPermissionsToRole(
+        @Parameter(description = "角色ID") @PathVariable int roleId,
+        @Parameter(description = "要添加的权限ID列表") @RequestBody List<Integer> permissionIds) {
+        if (permissionIds == null || permissionIds.isEmpty()) {
+            return ApiResponse.error("权限ID不能为空");
+        }
+        if (permissionIds.size() > maxBulkRows) {
+            return ApiResponse.error("单次添加数量不能超过 " + maxBulkRows);
+        }
+        BulkResult result = roleService.addPermissionsToRole(roleId, permissionIds);
+        return ApiResponse.success("权限批量添加成功", result);
     }
 
     /**
@@ -130,15 +178,24 @@ public class RoleController {
      * 接口路径：/api/roles/{roleId}/permissions/{permissionId}
      * 权限要求：需要具备 "role:remove_permission" 权限。
      * 参数：@PathVariable int roleId，要移除权限的角色的 ID；@PathVariable int permissionId，要移除的权限的 ID。
-     * 返回值：ApiResponse<Void>，返回包含移除成功消息 "权限移除成功" 的成功响应，数据部分为 null，若失败则返回错误响应。
+     * 返回值：ApiResponse<Boolean>，返回包含移除成功消息 "权限移除成功" 的成功响应，数据部分表示是否删除了关联（本就没有该权限时为 false），若失败则返回错误响应。
      */
-    @Operation(summary = "移除角色的权限", description = "移除指定角色的指定权限")
+    @Operation(summary = "移除角色的权限", description = "移除指定角色的指定权限，重复移除是幂等的")
     @DeleteMapping("/{roleId}/permissions/{permissionId}")
     @RequirePermission("role:remove_permission")
-    public ApiResponse<Void> removePermissionFromRole(
+    public ApiResponse<Boolean> removePermissionFromRole(
         @Parameter(description = "角色ID") @PathVariable int roleId,
         @Parameter(description = "要移除的权限ID") @PathVariable int permissionId) {
-        roleService.removePermissionFromRole(roleId, permissionId);
-        return ApiResponse.success("权限移除成功", null);
+        boolean changed = roleService.removePermissionFromRole(roleId, permissionId);
+        return ApiResponse.success("权限移除成功", changed);
+    }
+
+    /**
+     * 请求引用的角色或权限不存在时返回 404。
+     */
+    @ExceptionHandler(ResourceNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiResponse<Void> handleNotFound(ResourceNotFoundException e) {
+        return ApiResponse.error(e.getMessage());
     }
 }
\ No newline at end of file
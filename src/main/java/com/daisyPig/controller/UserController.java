@@ -2,15 +2,27 @@ package com.daisyPig.controller;
 
 import com.daisyPig.annotation.RequirePermission;
 import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.dto.BulkAssignRequest;
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.dto.ImportProgress;
 import com.daisyPig.entity.User;
+import com.daisyPig.service.ResourceNotFoundException;
+import com.daisyPig.service.UserImportService;
 import com.daisyPig.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/users")
@@ -19,18 +31,96 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Value("${rbac.bulk.max-rows:100000}")
+    private int maxBulkRows;
+
     /**
-     * 获取所有用户的接口。
+     * 分页获取用户列表的接口。
      * 请求方式：GET
-     * 接口路径：/api/users
+     * 接口路径：/api/users?after={id}&limit={n}
      * 权限要求：需要具备 "user:view" 权限。
-     * 返回值：ApiResponse<List<User>>，成功时返回包含用户列表的响应，失败时返回错误信息。
+     * 参数：
+     * - after：上一页返回的 nextAfter，首页不传。
+     * - limit：每页条数，默认 50，最大 500。
+     * - usernamePrefix：按用户名前缀过滤，可选。
+     * - createdFrom / createdTo：按创建时间范围 [createdFrom, createdTo) 过滤，ISO 格式，可选。
+     * 返回值：ApiResponse<CursorPage<User>>，成功时返回当前页用户（不含密码）以及下一页游标，失败时返回错误信息。
      */
-    @Operation(summary = "获取所有用户", description = "获取系统中所有用户的列表信息")
+    @Operation(summary = "分页获取用户", description = "按ID游标分页获取用户列表，支持用户名前缀和创建时间范围过滤")
     @GetMapping
     @RequirePermission("user:view")
-    public ApiResponse<List<User>> getAllUsers() {
-        return ApiResponse.success(userService.getAllUsers());
+    public ApiResponse<CursorPage<User>> getUsers(
+        @Parameter(description = "上一页最后一个用户ID") @RequestParam(required = false) Integer after,
+        @Parameter(description = "每页条数") @RequestParam(defaultValue = "50") int limit,
+        @Parameter(description = "用户名前缀") @RequestParam(required = false) String usernamePrefix,
+        @Parameter(description = "创建时间下限（含）") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @Parameter(description = "创建时间上限（不含）") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo) {
+        return ApiResponse.success(userService.getUsers(after, limit, usernamePrefix, createdFrom, createdTo));
+    }
+
+    /**
+     * 导出全部用户及其角色的接口，用于向数据仓库同步。
+     * 请求方式：GET
+     * 接口路径：/api/users/export
+     * 权限要求：需要具备 "user:export" 权限。
+     * 返回值：application/x-ndjson 格式的流式响应，每行一个用户（id、username、email、createdAt、roles 角色名称列表），不含密码。
+     */
+    @Operation(summary = "导出用户", description = "以 NDJSON 格式流式导出全部用户及其角色名称")
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    @RequirePermission("user:export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        userService.exportUsers(response.getOutputStream());
+    }
+
+    /**
+     * 批量导入用户的接口，用于从旧系统迁移账号。导入在后台执行，接口立即返回任务进度。
+     * 请求方式：POST
+     * 接口路径：/api/users/import
+     * 权限要求：需要具备 "user:import" 权限。
+     * 参数：请求体为 text/csv（首行表头 username,password,email）或 application/x-ndjson（每行一个 {"username","password","email"}）。
+     * 密码已是 bcrypt 哈希的记录直接沿用，其余记录按默认代价计算哈希；导入的用户统一分配 RegularUser 角色，已存在的用户名跳过。
+     * 返回值：ApiResponse<ImportProgress>，成功时返回任务ID及初始进度，已有导入任务在运行时返回错误信息；
+     * 请求体超过 rbac.import.max-size 时返回 413，记录数超过 rbac.import.max-rows 时返回 400，均不启动任务。
+     */
+    @Operation(summary = "批量导入用户", description = "上传 CSV 或 NDJSON 文件，后台并行计算密码哈希并批量写入用户")
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @RequirePermission("user:import")
+    public ApiResponse<ImportProgress> importUsers(HttpServletRequest request) {
+        String format = request.getContentType().startsWith("text/csv")
+                ? UserImportService.FORMAT_CSV : UserImportService.FORMAT_NDJSON;
+        try {
+            return ApiResponse.success("导入任务已开始", userImportService.startImport(request.getInputStream(), format));
+        } catch (UserImportService.TooLargeException | UserImportService.TooManyRowsException e) {
+            throw e;
+        } catch (Exception e) {
+            return ApiResponse.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询批量导入任务进度的接口。
+     * 请求方式：GET
+     * 接口路径：/api/users/import/{jobId}
+     * 权限要求：需要具备 "user:import" 权限。
+     * 参数：@PathVariable String jobId，导入接口返回的任务ID。
+     * 返回值：ApiResponse<ImportProgress>，包含已解析、已哈希、已插入、已跳过的记录数及吞吐量，任务不存在时返回错误信息。
+     */
+    @Operation(summary = "查询导入进度", description = "查询批量导入任务的进度和吞吐量")
+    @GetMapping("/import/{jobId}")
+    @RequirePermission("user:import")
+    public ApiResponse<ImportProgress> getImportProgress(
+        @Parameter(description = "导入任务ID") @PathVariable String jobId) {
+        ImportProgress progress = userImportService.getProgress(jobId);
+        if (progress == null) {
+            return ApiResponse.error("导入任务不存在");
+        }
+        return ApiResponse.success(progress);
     }
 
     /**
@@ -94,16 +184,41 @@ public class UserController {
      * 接口路径：/api/users/{userId}/roles/{roleId}
      * 权限要求：需要具备 "user:assign_role" 权限。
      * 参数：@PathVariable int userId，用户的 ID；@PathVariable int roleId，要分配的角色的 ID。
-     * 返回值：ApiResponse<Void>，成功时返回包含成功消息 "角色分配成功" 的响应，且数据部分为 null，失败时返回错误信息。
+     * 返回值：ApiResponse<Boolean>，成功时返回包含成功消息 "角色分配成功" 的响应，数据部分表示是否新增了关联（已拥有该角色时为 false）；用户或角色不存在时返回 404。
      */
-    @Operation(summary = "分配角色给用户", description = "为指定用户分配一个角色")
+    @Operation(summary = "分配角色给用户", description = "为指定用户分配一个角色，重复分配是幂等的")
     @PostMapping("/{userId}/roles/{roleId}")
     @RequirePermission("user:assign_role")
-    public ApiResponse<Void> assignRoleToUser(
+    public ApiResponse<Boolean> assignRoleToUser(
         @Parameter(description = "用户ID") @PathVariable int userId,
         @Parameter(description = "要分配的角色ID") @PathVariable int roleId) {
-        userService.assignRoleToUser(userId, roleId);
-        return ApiResponse.success("角色分配成功", null);
+        boolean changed = userService.assignRoleToUser(userId, roleId);
+        return ApiResponse.success("角色分配成功", changed);
+    }
+
+    /**
+     * 批量为用户分配角色的接口。
+     * 请求方式：POST
+     * 接口路径：/api/users/roles
+     * 权限要求：需要具备 "user:assign_role" 权限。
+     * 参数：@RequestBody BulkAssignRequest request，userIds 与 roleIds 的每个组合都会被分配。
+     * 返回值：ApiResponse<BulkResult>，成功时返回新增与跳过（已存在）的关联数量；参数为空或组合数量超过上限时返回错误信息；
+     *         有不存在的用户或角色ID时返回 404 并列出这些ID，不分配任何角色。
+     */
+    @Operation(summary = "批量分配角色给用户", description = "在一个事务中为多个用户批量分配多个角色，已存在的关联会被跳过")
+    @PostMapping("/roles")
+    @RequirePermission("user:assign_role")
+    public ApiResponse<BulkResult> assignRolesToUsers(
+        @Parameter(description = "用户ID列表与角色ID列表") @RequestBody BulkAssignRequest request) {
+        if (request.getUserIds() == null || request.getUserIds().isEmpty()
+                || request.getRoleIds() == null || request.getRoleIds().isEmpty()) {
+            return ApiResponse.error("用户ID和角色ID不能为空");
+        }
+        if ((long) request.getUserIds().size() * request.getRoleIds().size() > maxBulkRows) {
+            return ApiResponse.error("单次分配数量不能超过 " + maxBulkRows);
+        }
+        BulkResult result = userService.assignRolesToUsers(request.getUserIds(), request.getRoleIds());
+        return ApiResponse.success("角色批量分配成功", result);
     }
 
     /**
@@ -112,15 +227,42 @@ public class UserController {
      * 接口路径：/api/users/{userId}/roles/{roleId}
      * 权限要求：需要具备 "user:remove_role" 权限。
      * 参数：@PathVariable int userId，用户的 ID；@PathVariable int roleId，要移除的角色的 ID。
-     * 返回值：ApiResponse<Void>，成功时返回包含成功消息 "角色移除成功" 的响应，且数据部分为 null，失败时返回错误信息。
+     * 返回值：ApiResponse<Boolean>，成功时返回包含成功消息 "角色移除成功" 的响应，数据部分表示是否删除了关联（本就没有该角色时为 false），失败时返回错误信息。
      */
-    @Operation(summary = "移除用户的角色", description = "移除指定用户的指定角色")
+    @Operation(summary = "移除用户的角色", description = "移除指定用户的指定角色，重复移除是幂等的")
     @DeleteMapping("/{userId}/roles/{roleId}")
     @RequirePermission("user:remove_role")
-    public ApiResponse<Void> removeRoleFromUser(
+    public ApiResponse<Boolean> removeRoleFromUser(
         @Parameter(description = "用户ID") @PathVariable int userId,
         @Parameter(description = "要移除的角色ID") @PathVariable int roleId) {
-        userService.removeRoleFromUser(userId, roleId);
-        return ApiResponse.success("角色移除成功", null);
+        boolean changed = userService.removeRoleFromUser(userId, roleId);
+        return ApiResponse.success("角色移除成功", changed);
+    }
+
+    /**
+     * 导入文件超过大小上限时返回 413。
+     */
+    @ExceptionHandler(UserImportService.TooLargeException.class)
+    @ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+    public ApiResponse<Void> handleImportTooLarge(UserImportService.TooLargeException e) {
+        return ApiResponse.error(e.getMessage());
+    }
+
+    /**
+     * 导入记录数超过上限时返回 400。
+     */
+    @ExceptionHandler(UserImportService.TooManyRowsException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiResponse<Void> handleImportTooManyRows(UserImportService.TooManyRowsException e) {
+        return ApiResponse.error(e.getMessage());
+    }
+
+    /**
+     * 请求引用的用户或角色不存在时返回 404。
+     */
+    @ExceptionHandler(ResourceNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiResponse<Void> handleNotFound(ResourceNotFoundException e) {
+        return ApiResponse.error(e.getMessage());
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthzCheckRequest {
+    private List<Check> checks;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Check {
+        private Integer userId;
+        private String permission;
+    }
+}
@@ -0,0 +1,15 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkAssignRequest {
+    private List<Integer> userIds;
+    private List<Integer> roleIds;
+}
@@ -0,0 +1,16 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量分配关联的结果。写入前已校验全部ID存在，未新增的关联都是此前已经存在的。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResult {
+    private int inserted;  // 实际新增的关联数
+    private int skipped;   // 已存在而跳过的关联数
+}
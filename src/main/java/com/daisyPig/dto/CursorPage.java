@@ -0,0 +1,28 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 基于游标（上一页最后一条记录的ID）的分页结果。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    // 每页最大条数
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private Integer nextAfter;  // 下一页请求使用的 after 参数，没有更多数据时为 null
+
+    /**
+     * 将请求的条数限制在 [1, MAX_LIMIT] 之间。
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,25 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量导入任务的进度快照。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportProgress {
+    private String jobId;
+    private String state;           // RUNNING / COMPLETED / FAILED
+    private long parsed;            // 已解析的记录数
+    private long hashed;            // 已完成 bcrypt 计算的记录数
+    private long reusedHashes;      // 密码已是 bcrypt 哈希、跳过计算的记录数
+    private long inserted;          // 新增的用户数
+    private long skipped;           // 用户名已存在或文件内重复而跳过的记录数
+    private long invalid;           // 格式错误的记录数
+    private long elapsedMillis;
+    private double usersPerSecond;  // 按已处理（新增 + 跳过）记录数计算的吞吐量
+    private String error;
+}
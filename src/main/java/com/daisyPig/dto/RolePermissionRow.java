@@ -0,0 +1,12 @@
+package com.daisyPig.dto;
+
+import lombok.Data;
+
+/**
+ * 角色与权限联表查询的一行：角色ID及其拥有的一个权限名称。
+ */
+@Data
+public class RolePermissionRow {
+    private Integer roleId;
+    private String permissionName;
+}
@@ -0,0 +1,134 @@
+package com.daisyPig.dto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 存放在 HttpSession 中的登录主体，只保存鉴权需要的信息：用户ID、登录时的授权模型版本、生成时间和权限位图。
+ * 不可变；序列化时通过代理类只写出这几个字段，便于会话持久化和复制。
+ */
+public final class SessionPrincipal implements Serializable {
+    public static final String SESSION_ATTRIBUTE = "currentUser";
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int userId;
+    private final long modelVersion;
+    // 生成时间（毫秒时间戳），位图超过 rbac.auth-cache.mask-max-age 后不再直接使用；为 0 时表示未知
+    private final long issuedAt;
+    // 以内部权限ID为下标的位图，为 null 时总是按用户ID读取权限缓存
+    private final long[] permissions;
+
+    public SessionPrincipal(int userId, long modelVersion, long issuedAt, long[] permissions) {
+        this.userId = userId;
+        this.modelVersion = modelVersion;
+        this.issuedAt = issuedAt;
+        this.permissions = permissions != null ? permissions.clone() : null;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    public long[] getPermissions() {
+        return permissions != null ? permissions.clone() : null;
+    }
+
+    /**
+     * 以紧凑的二进制格式写出：[userId 4B][modelVersion 8B][issuedAt 8B][位图字数 2B，-1 表示无位图][位图 8B*n]。
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(userId);
+        out.writeLong(modelVersion);
+        out.writeLong(issuedAt);
+        out.writeShort(permissions != null ? permissions.length : -1);
+        if (permissions != null) {
+            for (long word : permissions) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    public static SessionPrincipal readFrom(DataInput in) throws IOException {
+        return read(in, true);
+    }
+
+    /**
+     * 读取不含 issuedAt 的旧格式，生成时间视为未知，位图不会被直接使用。
+     */
+    public static SessionPrincipal readLegacyFrom(DataInput in) throws IOException {
+        return read(in, false);
+    }
+
+    private static SessionPrincipal read(DataInput in, boolean withIssuedAt) throws IOException {
+        int userId = in.readInt();
+        long modelVersion = in.readLong();
+        long issuedAt = withIssuedAt ? in.readLong() : 0L;
+        int words = in.readShort();
+        long[] permissions = null;
+        if (words >= 0) {
+            permissions = new long[words];
+            for (int i = 0; i < words; i++) {
+                permissions[i] = in.readLong();
+            }
+        }
+        return new SessionPrincipal(userId, modelVersion, issuedAt, permissions);
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new Ser(this);
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws InvalidObjectException {
+        throw new InvalidObjectException("SessionPrincipal must be deserialized through its proxy");
+    }
+
+    // 序列化代理，只写出 writeTo 的紧凑格式
+    private static final class Ser implements Externalizable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private SessionPrincipal principal;
+
+        public Ser() {
+        }
+
+        Ser(SessionPrincipal principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            principal.writeTo(out);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            principal = readFrom(in);
+        }
+
+        @Serial
+        private Object readResolve() {
+            return principal;
+        }
+    }
+}
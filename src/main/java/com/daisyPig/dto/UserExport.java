@@ -0,0 +1,22 @@
+package com.daisyPig.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户导出记录，对应 NDJSON 中的一行。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserExport {
+    private Integer id;
+    private String username;
+    private String email;
+    private LocalDateTime createdAt;
+    private List<String> roles;
+}
@@ -0,0 +1,17 @@
+package com.daisyPig.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户与角色联表查询的一行，一个用户拥有多个角色时对应多行。
+ */
+@Data
+public class UserRoleRow {
+    private Integer id;
+    private String username;
+    private String email;
+    private LocalDateTime createdAt;
+    private String roleName;
+}
@@ -0,0 +1,29 @@
+package com.daisyPig.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+@Data
+@TableName("http_sessions")
+public class SessionRecord {
+    @TableId(value = "id", type = IdType.INPUT)
+    private String id;
+
+    // 以下时间均为毫秒时间戳
+    @TableField("creation_time")
+    private long creationTime;
+
+    @TableField("last_access_time")
+    private long lastAccessTime;
+
+    // 秒
+    @TableField("max_inactive_interval")
+    private int maxInactiveInterval;
+
+    // last_access_time + max_inactive_interval，便于按索引清理过期会话
+    @TableField("expiry_time")
+    private long expiryTime;
+
+    // SessionAttributesCodec 编码的会话属性
+    private byte[] attributes;
+}
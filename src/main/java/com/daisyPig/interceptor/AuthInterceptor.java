@@ -1,10 +1,14 @@
 package com.daisyPig.interceptor;
 
-import com.daisyPig.annotation.RequirePermission;
-import com.daisyPig.entity.Permission;
-import com.daisyPig.entity.Role;
-import com.daisyPig.entity.User;
-import com.daisyPig.service.UserService;
+import com.daisyPig.audit.AuditLogFormat;
+import com.daisyPig.audit.AuthorizationAuditLog;
+import com.daisyPig.cache.CompiledPermissions;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.SessionPrincipal;
+import com.daisyPig.service.AccessTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -13,13 +17,46 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class AuthInterceptor implements HandlerInterceptor {
+    private static final String BEARER_PREFIX = "Bearer ";
     
     @Autowired
-    private UserService userService;
+    private UserPermissionCache userPermissionCache;
     
-
+    @Autowired
+    private RouteAuthorizationTable routeAuthorizationTable;
+    
+    @Autowired
+    private AccessTokenService accessTokenService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private AuthorizationAuditLog auditLog;
+    
+    // 需要权限校验的请求按结果分别计时：allowed 放行、denied 权限不足、unauthenticated 未登录或令牌无效
+    private Timer allowedTimer;
+    private Timer deniedTimer;
+    private Timer unauthenticatedTimer;
+    
+    @PostConstruct
+    void init() {
+        allowedTimer = decisionTimer("allowed");
+        deniedTimer = decisionTimer("denied");
+        unauthenticatedTimer = decisionTimer("unauthenticated");
+    }
+    
+    private Timer decisionTimer(String outcome) {
+        return Timer.builder("rbac.authz.decision")
+                .description("接口权限校验耗时")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         // 如果不是映射到方法，直接通过
@@ -27,61 +64,61 @@ public class AuthInterceptor implements HandlerInterceptor {
             return true;
         }
         
-        // 获取方法上的RequirePermission注解
+        // 从启动时编译好的映射表中查找接口的权限要求
         HandlerMethod handlerMethod = (HandlerMethod) handler;
-        RequirePermission requirePermission = handlerMethod.getMethodAnnotation(RequirePermission.class);
+        RouteRequirement requirement = routeAuthorizationTable.lookup(handlerMethod);
         
-        // 如果没有注解，则不需要权限验证
-        if (requirePermission == null) {
+        // 如果没有权限要求，则不需要权限验证
+        if (!requirement.isRequired()) {
             return true;
         }
         
-        // 获取当前登录用户
-        HttpSession session = request.getSession();
-        User user = (User) session.getAttribute("currentUser");
+        long start = System.nanoTime();
         
-        // 如果未登录，则拒绝访问
-        if (user == null) {
-            response.setContentType("application/json;charset=UTF-8");
-            response.getWriter().write("{\"success\":false,\"message\":\"请先登录\",\"data\":null}");
-            return false;
+        // 获取当前登录用户的权限：令牌模式下验签后直接使用令牌中的权限掩码，否则从会话中取用户
+        CompiledPermissions permissions;
+        int userId;
+        String authorization = request.getHeader("Authorization");
+        if (accessTokenService.isEnabled() && authorization != null && authorization.startsWith(BEARER_PREFIX)) {
+            AccessTokenService.AccessToken token = accessTokenService.verify(authorization.substring(BEARER_PREFIX.length()));
+            if (token == null) {
+                return unauthenticated(response, start, handlerMethod, requirement);
+            }
+            userId = token.getUserId();
+            permissions = accessTokenService.permissionsOf(token);
+        } else {
+            HttpSession session = request.getSession(false);
+            Object principal = session != null ? session.getAttribute(SessionPrincipal.SESSION_ATTRIBUTE) : null;
+            
+            // 如果未登录（或是升级前保存了完整 User 的旧会话），则拒绝访问
+            if (!(principal instanceof SessionPrincipal sessionPrincipal)) {
+                return unauthenticated(response, start, handlerMethod, requirement);
+            }
+            userId = sessionPrincipal.getUserId();
+            permissions = userPermissionCache.resolve(sessionPrincipal.getUserId(), sessionPrincipal.getModelVersion(),
+                    sessionPrincipal.getIssuedAt(), sessionPrincipal.getPermissions());
         }
         
-        // 获取用户的完整信息（包括角色和权限）
-        User fullUser = userService.getUserWithRoles(user.getId());
-        
-        // 获取需要的权限
-        String requiredPermission = requirePermission.value();
-        
-        // 检查用户是否有所需权限
-        if (hasPermission(fullUser, requiredPermission)) {
+        // 检查用户是否有所需权限（命中缓存时不访问数据库，只做位运算）
+        if (requirement.isSatisfiedBy(permissions)) {
+            allowedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            auditLog.record(userId, handlerMethod, requirement, AuditLogFormat.OUTCOME_ALLOWED);
             return true;
         } else {
+            deniedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            auditLog.record(userId, handlerMethod, requirement, AuditLogFormat.OUTCOME_DENIED);
             response.setContentType("application/json;charset=UTF-8");
             response.getWriter().write("{\"success\":false,\"message\":\"权限不足\",\"data\":null}");
             return false;
         }
     }
     
-    private boolean hasPermission(User user, String requiredPermission) {
-        if (user.getRoles() == null) {
-            return false;
-        }
-        
-        // 遍历用户的所有角色
-        for (Role role : user.getRoles()) {
-            if (role.getPermissions() == null) {
-                continue;
-            }
-            
-            // 遍历角色的所有权限
-            for (Permission permission : role.getPermissions()) {
-                if (permission.getPermissionName().equals(requiredPermission)) {
-                    return true;
-                }
-            }
-        }
-        
+    private boolean unauthenticated(HttpServletResponse response, long start,
+                                    HandlerMethod handlerMethod, RouteRequirement requirement) throws IOException {
+        unauthenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        auditLog.record(-1, handlerMethod, requirement, AuditLogFormat.OUTCOME_UNAUTHENTICATED);
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"success\":false,\"message\":\"请先登录\",\"data\":null}");
         return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.daisyPig.interceptor;
+
+import com.daisyPig.annotation.RequirePermission;
+import com.daisyPig.cache.RbacCatalog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 接口 -> 权限要求 的不可变映射表。
+ * 启动时从 RequestMappingHandlerMapping 一次性构建，请求处理时只做一次哈希查找，不再反射读取注解。
+ */
+@Slf4j
+@Component
+public class RouteAuthorizationTable implements SmartInitializingSingleton {
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
+    private volatile Map<Method, RouteRequirement> table = Map.of();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // 通过容器获取而不是直接注入，避免与 WebMvcConfig -> AuthInterceptor 形成循环依赖
+        RequestMappingHandlerMapping handlerMapping = applicationContext.getBean(
+                "requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        Map<Method, RouteRequirement> compiled = new HashMap<>();
+        for (HandlerMethod handlerMethod : handlerMapping.getHandlerMethods().values()) {
+            compiled.put(handlerMethod.getMethod(), compile(handlerMethod));
+        }
+        table = Map.copyOf(compiled);
+        log.info("Compiled authorization table for {} handler methods", compiled.size());
+    }
+
+    /**
+     * 查找接口的权限要求。不在表中的接口（例如其它 HandlerMapping 注册的）现场编译，保证不会漏检。
+     */
+    public RouteRequirement lookup(HandlerMethod handlerMethod) {
+        RouteRequirement requirement = table.get(handlerMethod.getMethod());
+        return requirement != null ? requirement : compile(handlerMethod);
+    }
+
+    private RouteRequirement compile(HandlerMethod handlerMethod) {
+        // 方法上的注解优先，其次使用控制器类上的默认要求
+        RequirePermission annotation = AnnotatedElementUtils.findMergedAnnotation(
+                handlerMethod.getMethod(), RequirePermission.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(
+                    handlerMethod.getBeanType(), RequirePermission.class);
+        }
+        if (annotation == null) {
+            return RouteRequirement.NONE;
+        }
+        return RouteRequirement.compile(annotation.allOf(), annotation.anyOf(), rbacCatalog::permissionId);
+    }
+}
@@ -0,0 +1,61 @@
+package com.daisyPig.interceptor;
+
+import com.daisyPig.cache.CompiledPermissions;
+
+import java.util.BitSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * 单个接口编译后的权限要求：权限名称已解析为内部ID，并以位图掩码形式保存。
+ */
+public final class RouteRequirement {
+    // 无需权限校验的接口
+    public static final RouteRequirement NONE = new RouteRequirement(new String[0], new String[0], new long[0], new long[0]);
+
+    private final String[] allOf;
+    private final String[] anyOf;
+    private final long[] allMask;
+    private final long[] anyMask;
+
+    private RouteRequirement(String[] allOf, String[] anyOf, long[] allMask, long[] anyMask) {
+        this.allOf = allOf;
+        this.anyOf = anyOf;
+        this.allMask = allMask;
+        this.anyMask = anyMask;
+    }
+
+    public static RouteRequirement compile(String[] allOf, String[] anyOf, ToIntFunction<String> permissionIds) {
+        if (allOf.length == 0 && anyOf.length == 0) {
+            return NONE;
+        }
+        return new RouteRequirement(allOf.clone(), anyOf.clone(),
+                mask(allOf, permissionIds), mask(anyOf, permissionIds));
+    }
+
+    private static long[] mask(String[] permissionNames, ToIntFunction<String> permissionIds) {
+        BitSet bits = new BitSet();
+        for (String permissionName : permissionNames) {
+            bits.set(permissionIds.applyAsInt(permissionName));
+        }
+        return bits.toLongArray();
+    }
+
+    public boolean isRequired() {
+        return this != NONE;
+    }
+
+    /**
+     * 判断用户的编译权限是否满足要求：allOf 全部具备，且 anyOf 为空或至少具备其一。
+     */
+    public boolean isSatisfiedBy(CompiledPermissions permissions) {
+        return permissions.containsAll(allMask) && (anyOf.length == 0 || permissions.intersects(anyMask));
+    }
+
+    public String[] getAllOf() {
+        return allOf.clone();
+    }
+
+    public String[] getAnyOf() {
+        return anyOf.clone();
+    }
+}
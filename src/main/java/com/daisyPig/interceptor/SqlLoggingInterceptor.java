@@ -0,0 +1,192 @@
+package com.daisyPig.interceptor;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MyBatis 插件：取代 StdOutImpl 的 SQL 日志。
+ * 只记录超过 slowThreshold 的慢语句和按 sampleRate 抽样的其余语句，每条记录为一行 key=value，
+ * 写入 com.daisyPig.sql 日志，由 logback-spring.xml 中有界、满时丢弃的异步 Appender 输出，不阻塞请求线程。
+ * 出于安全考虑只输出 SQL 文本，不输出参数（其中可能有密码哈希）。
+ * 另外按 window 切分时间窗口统计每条语句的执行次数和总耗时，窗口结束后由下一次执行的线程输出一行汇总。
+ */
+@Slf4j(topic = "com.daisyPig.sql")
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class SqlLoggingInterceptor implements Interceptor {
+    @Value("${rbac.sql-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rbac.sql-log.slow-threshold:200ms}")
+    private Duration slowThreshold;
+
+    @Value("${rbac.sql-log.sample-rate:0.001}")
+    private double sampleRate;
+
+    @Value("${rbac.sql-log.window:1m}")
+    private Duration window;
+
+    @Value("${rbac.sql-log.max-sql-length:1000}")
+    private int maxSqlLength;
+
+    private long slowThresholdNanos;
+    private long windowNanos;
+    private final AtomicReference<Window> currentWindow = new AtomicReference<>(new Window(Long.MIN_VALUE));
+
+    @PostConstruct
+    void init() {
+        slowThresholdNanos = slowThreshold.toNanos();
+        windowNanos = window.toNanos();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!enabled) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArgs();
+        MappedStatement statement = (MappedStatement) args[0];
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            record(statement, args, result, failure, end - start, end);
+        }
+    }
+
+    void record(MappedStatement statement, Object[] args, Object result, Throwable failure, long elapsedNanos, long now) {
+        statsFor(now).computeIfAbsent(statement.getId(), id -> new StatementStats()).add(elapsedNanos);
+
+        String reason;
+        if (elapsedNanos >= slowThresholdNanos) {
+            reason = "slow";
+        } else if (failure != null) {
+            reason = "error";
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reason = "sample";
+        } else {
+            return;
+        }
+        // 只有需要输出时才取 SQL 文本，未命中的语句在这里没有额外开销
+        BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : statement.getBoundSql(args[1]);
+        log.info("event=sql reason={} statement={} elapsedMs={} rows={} error={} sql=\"{}\"",
+                reason, statement.getId(), millis(elapsedNanos), rows(result),
+                failure == null ? "-" : failure.getClass().getSimpleName(), compact(boundSql.getSql()));
+    }
+
+    private Map<String, StatementStats> statsFor(long now) {
+        long index = Math.floorDiv(now, windowNanos);
+        Window current = currentWindow.get();
+        while (current.index != index) {
+            Window next = new Window(index);
+            if (currentWindow.compareAndSet(current, next)) {
+                // 只有切换成功的线程输出上一个窗口；切换瞬间仍在累加旧窗口的少量记录会计入该窗口或丢失，可以接受
+                flush(current);
+                return next.stats;
+            }
+            current = currentWindow.get();
+        }
+        return current.stats;
+    }
+
+    private void flush(Window finished) {
+        if (finished.index == Long.MIN_VALUE) {
+            return;
+        }
+        for (Map.Entry<String, StatementStats> entry : finished.stats.entrySet()) {
+            StatementStats stats = entry.getValue();
+            long count = stats.count.sum();
+            log.info("event=sql-window windowMs={} statement={} count={} totalMs={} avgMs={}",
+                    TimeUnit.NANOSECONDS.toMillis(windowNanos), entry.getKey(), count,
+                    millis(stats.totalNanos.sum()), millis(stats.totalNanos.sum() / Math.max(1, count)));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return Integer.toString(collection.size());
+        }
+        if (result instanceof Integer count) {
+            return count.toString();
+        }
+        return "-";
+    }
+
+    // 合并换行和连续空白为单个空格，双引号替换为单引号，保证一条记录占一行且 sql 字段可解析
+    private String compact(String sql) {
+        StringBuilder builder = new StringBuilder(Math.min(sql.length(), maxSqlLength));
+        boolean whitespace = false;
+        for (int i = 0; i < sql.length() && builder.length() < maxSqlLength; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                whitespace = builder.length() > 0;
+                continue;
+            }
+            if (whitespace) {
+                builder.append(' ');
+                whitespace = false;
+            }
+            builder.append(c == '"' ? '\'' : c);
+        }
+        return builder.toString();
+    }
+
+    private static final class Window {
+        private final long index;
+        private final Map<String, StatementStats> stats = new ConcurrentHashMap<>();
+
+        Window(long index) {
+            this.index = index;
+        }
+    }
+
+    private static final class StatementStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+        }
+    }
+}
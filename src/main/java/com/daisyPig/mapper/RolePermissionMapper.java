@@ -1,15 +1,39 @@
 package com.daisyPig.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.daisyPig.dto.RolePermissionRow;
 import com.daisyPig.entity.Permission;
 import com.daisyPig.entity.RolePermission;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface RolePermissionMapper extends BaseMapper<RolePermission> {
     @Select("SELECT p.* FROM permissions p JOIN role_permissions rp ON p.id = rp.permission_id WHERE rp.role_id = #{roleId}")
     List<Permission> getPermissionsByRoleId(@Param("roleId") int roleId);
+
+    // 与 UserMapper.selectUserWithRoles 一样按名称联表读取权限，已删除的权限不会出现
+    @Select("<script>SELECT rp.role_id, p.permission_name FROM role_permissions rp JOIN permissions p ON p.id = rp.permission_id "
+            + "WHERE rp.role_id IN <foreach collection='roleIds' item='roleId' open='(' separator=',' close=')'>#{roleId}</foreach></script>")
+    List<RolePermissionRow> getPermissionNamesByRoleIds(@Param("roleIds") Collection<Integer> roleIds);
+
+    // 单条幂等插入，一次往返完成。表上没有外键，插入的值取自 roles、permissions 两张表：
+    // 角色或权限不存在、关联已存在时都不插入，返回 0
+    @Insert("INSERT IGNORE INTO role_permissions (role_id, permission_id) "
+            + "SELECT r.id, p.id FROM roles r JOIN permissions p ON p.id = #{permissionId} WHERE r.id = #{roleId}")
+    int insertIgnore(@Param("roleId") int roleId, @Param("permissionId") int permissionId);
+
+    // 全部角色权限关联，用于构建权限 -> 用户反向索引；联表过滤掉角色或权限已删除的残留关联
+    @Select("SELECT rp.role_id, rp.permission_id FROM role_permissions rp JOIN roles r ON r.id = rp.role_id "
+            + "JOIN permissions p ON p.id = rp.permission_id")
+    List<RolePermission> selectExistingLinks();
+
+    // 多行插入，已存在的 (role_id, permission_id) 被忽略，返回值为实际插入的行数
+    @Insert("<script>INSERT IGNORE INTO role_permissions (role_id, permission_id) VALUES "
+            + "<foreach collection='rows' item='row' separator=','>(#{row.roleId}, #{row.permissionId})</foreach></script>")
+    int insertIgnoreBatch(@Param("rows") List<RolePermission> rows);
 }
\ No newline at end of file
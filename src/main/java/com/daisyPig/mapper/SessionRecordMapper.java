@@ -0,0 +1,27 @@
+package com.daisyPig.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.daisyPig.entity.SessionRecord;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface SessionRecordMapper extends BaseMapper<SessionRecord> {
+    @Insert("INSERT INTO http_sessions (id, creation_time, last_access_time, max_inactive_interval, expiry_time, attributes) "
+            + "VALUES (#{id}, #{creationTime}, #{lastAccessTime}, #{maxInactiveInterval}, #{expiryTime}, #{attributes}) "
+            + "ON DUPLICATE KEY UPDATE last_access_time = VALUES(last_access_time), "
+            + "max_inactive_interval = VALUES(max_inactive_interval), expiry_time = VALUES(expiry_time), "
+            + "attributes = VALUES(attributes)")
+    int upsert(SessionRecord record);
+
+    // 只刷新访问时间，不重写属性
+    @Update("UPDATE http_sessions SET last_access_time = #{lastAccessTime}, expiry_time = #{expiryTime} WHERE id = #{id}")
+    int touch(@Param("id") String id, @Param("lastAccessTime") long lastAccessTime, @Param("expiryTime") long expiryTime);
+
+    // 按 expiry_time 索引分批删除，避免一次删除大量行长时间持有锁
+    @Delete("DELETE FROM http_sessions WHERE expiry_time < #{now} LIMIT #{limit}")
+    int deleteExpired(@Param("now") long now, @Param("limit") int limit);
+}
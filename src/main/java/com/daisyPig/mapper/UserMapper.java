@@ -1,9 +1,42 @@
 package com.daisyPig.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.daisyPig.dto.UserRoleRow;
 import com.daisyPig.entity.User;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-}
\ No newline at end of file
+    // 一次联表查询加载用户及其角色、权限，SQL 与结果映射见 mapper/UserMapper.xml
+    User selectUserWithRoles(@Param("userId") int userId);
+
+    // 按用户ID顺序流式读取 用户-角色 联表结果。MySQL 连接串带 useCursorFetch=true 时驱动使用服务端游标，
+    // 每次往返取 fetchSize 行而不是一次性缓存整个结果集；正数的 fetchSize 在 H2 等其它数据库上同样有效
+    @Select("SELECT u.id, u.username, u.email, u.created_at, r.role_name FROM users u "
+            + "LEFT JOIN user_roles ur ON ur.user_id = u.id LEFT JOIN roles r ON r.id = ur.role_id ORDER BY u.id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<UserRoleRow> streamUsersWithRoleNames();
+
+    @Select("<script>SELECT username FROM users WHERE username IN "
+            + "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach></script>")
+    List<String> selectExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Select("<script>SELECT id FROM users WHERE username IN "
+            + "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach></script>")
+    List<Integer> selectIdsByUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 多行插入，用户名已存在的行被忽略，返回值为实际插入的行数
+    @Insert("<script>INSERT IGNORE INTO users (username, password, email, created_at) VALUES "
+            + "<foreach collection='users' item='user' separator=','>"
+            + "(#{user.username}, #{user.password}, #{user.email}, #{user.createdAt})</foreach></script>")
+    int insertIgnoreBatch(@Param("users") List<User> users);
+}
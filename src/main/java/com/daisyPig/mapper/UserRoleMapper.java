@@ -3,9 +3,11 @@ package com.daisyPig.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.daisyPig.entity.Role;
 import com.daisyPig.entity.UserRole;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -13,4 +15,36 @@ public interface UserRoleMapper extends BaseMapper<UserRole> {
     @Select("SELECT r.* FROM roles r JOIN user_roles ur ON r.id = ur.role_id WHERE ur.user_id = #{userId}")
     List<Role> getRolesByUserId(@Param("userId") int userId);
 
-}
\ No newline at end of file
+    @Select("<script>SELECT user_id, role_id FROM user_roles WHERE user_id IN "
+            + "<foreach collection='userIds' item='userId' open='(' separator=',' close=')'>#{userId}</foreach></script>")
+    List<UserRole> getUserRolesByUserIds(@Param("userIds") Collection<Integer> userIds);
+
+    // 单条幂等插入，一次往返完成。表上没有外键，插入的值取自 users、roles 两张表：
+    // 用户或角色不存在、关联已存在时都不插入，返回 0
+    @Insert("INSERT IGNORE INTO user_roles (user_id, role_id) "
+            + "SELECT u.id, r.id FROM users u JOIN roles r ON r.id = #{roleId} WHERE u.id = #{userId}")
+    int insertIgnore(@Param("userId") int userId, @Param("roleId") int roleId);
+
+    // 多行插入，已存在的 (user_id, role_id) 被忽略，返回值为实际插入的行数
+    @Insert("<script>INSERT IGNORE INTO user_roles (user_id, role_id) VALUES "
+            + "<foreach collection='rows' item='row' separator=','>(#{row.userId}, #{row.roleId})</foreach></script>")
+    int insertIgnoreBatch(@Param("rows") List<UserRole> rows);
+
+    // 按用户名为一批用户分配同一个角色，用于批量导入后无需取回自增ID
+    @Insert("<script>INSERT IGNORE INTO user_roles (user_id, role_id) SELECT id, #{roleId} FROM users WHERE username IN "
+            + "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach></script>")
+    int insertRoleForUsernames(@Param("roleId") int roleId, @Param("usernames") Collection<String> usernames);
+
+    @Select("SELECT COALESCE(MAX(user_id), 0) FROM user_roles")
+    int selectMaxUserId();
+
+    // 按用户ID区间读取关联，用于分段构建权限 -> 用户反向索引；联表过滤掉用户或角色已删除的残留关联
+    @Select("SELECT ur.user_id, ur.role_id FROM user_roles ur JOIN users u ON u.id = ur.user_id "
+            + "JOIN roles r ON r.id = ur.role_id WHERE ur.user_id > #{after} AND ur.user_id <= #{until}")
+    List<UserRole> selectByUserIdRange(@Param("after") int after, @Param("until") int until);
+
+    // 按用户ID游标读取持有某个角色的用户，不包括已删除的用户
+    @Select("SELECT ur.user_id FROM user_roles ur JOIN users u ON u.id = ur.user_id "
+            + "WHERE ur.role_id = #{roleId} AND ur.user_id > #{after} ORDER BY ur.user_id LIMIT #{limit}")
+    List<Integer> selectUserIdsByRoleId(@Param("roleId") int roleId, @Param("after") int after, @Param("limit") int limit);
+}
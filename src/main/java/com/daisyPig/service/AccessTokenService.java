@@ -0,0 +1,180 @@
+package com.daisyPig.service;
+
+import com.daisyPig.cache.CompiledPermissions;
+import com.daisyPig.cache.UserPermissionCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无状态访问令牌的签发与校验。
+ * 令牌为 Base64URL 编码的二进制：
+ * [格式版本 1B][用户ID 4B][授权模型版本 8B][过期时间（秒）8B][掩码字数 2B][权限掩码 8B*n][HMAC-SHA256 32B]。
+ * 权限掩码以内部权限ID为下标，校验时只需验签和位运算，不访问会话和数据库。
+ */
+@Service
+public class AccessTokenService {
+    private static final byte FORMAT_VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int HEADER_LENGTH = 1 + 4 + 8 + 8 + 2;
+    private static final int SIGNATURE_LENGTH = 32;
+    // 掩码字数上限，防止伪造的长度字段导致大数组分配
+    private static final int MAX_MASK_WORDS = 1024;
+
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+
+    @Value("${rbac.token.enabled:false}")
+    private boolean enabled;
+
+    // Base64 编码的 HMAC 密钥，同一集群的所有实例必须一致
+    @Value("${rbac.token.secret:}")
+    private String secret;
+
+    @Value("${rbac.token.ttl:30m}")
+    private Duration ttl;
+
+    private SecretKeySpec key;
+
+    // Mac 实例不是线程安全的，每个线程复用自己的实例
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        byte[] keyBytes = secret.isEmpty() ? new byte[0] : Base64.getDecoder().decode(secret);
+        if (keyBytes.length < 32) {
+            throw new IllegalStateException("rbac.token.secret must be a Base64 encoded key of at least 32 bytes");
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 为用户签发令牌，携带签发时刻的授权模型版本和权限掩码。
+     */
+    public String issue(int userId) {
+        // 先读版本再读权限：期间发生的变更会使版本递增，令牌随之失效，不会出现“旧权限 + 新版本”
+        long modelVersion = userPermissionCache.getModelVersion();
+        long[] mask = userPermissionCache.get(userId).toLongArray();
+        long expiresAt = System.currentTimeMillis() / 1000 + ttl.toSeconds();
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + mask.length * 8 + SIGNATURE_LENGTH);
+        buffer.put(FORMAT_VERSION).putInt(userId).putLong(modelVersion).putLong(expiresAt).putShort((short) mask.length);
+        for (long word : mask) {
+            buffer.putLong(word);
+        }
+        int payloadLength = buffer.position();
+        Mac mac = macs.get();
+        mac.update(buffer.array(), 0, payloadLength);
+        buffer.put(mac.doFinal());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 校验令牌的签名和有效期，通过时返回解码结果，否则返回 null。
+     */
+    public AccessToken verify(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length < HEADER_LENGTH + SIGNATURE_LENGTH) {
+            return null;
+        }
+        int payloadLength = bytes.length - SIGNATURE_LENGTH;
+        Mac mac = macs.get();
+        mac.update(bytes, 0, payloadLength);
+        byte[] expected = mac.doFinal();
+        if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(bytes, payloadLength, bytes.length))) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, payloadLength);
+            if (buffer.get() != FORMAT_VERSION) {
+                return null;
+            }
+            int userId = buffer.getInt();
+            long modelVersion = buffer.getLong();
+            long expiresAt = buffer.getLong();
+            int words = Short.toUnsignedInt(buffer.getShort());
+            if (words > MAX_MASK_WORDS || buffer.remaining() != words * 8) {
+                return null;
+            }
+            long[] mask = new long[words];
+            for (int i = 0; i < words; i++) {
+                mask[i] = buffer.getLong();
+            }
+            if (expiresAt <= System.currentTimeMillis() / 1000) {
+                return null;
+            }
+            // 令牌不单独记录签发时间，由过期时间倒推
+            long issuedAt = TimeUnit.SECONDS.toMillis(expiresAt - ttl.toSeconds());
+            return new AccessToken(userId, modelVersion, issuedAt, mask);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 返回令牌对应用户当前应使用的权限，授权模型版本已变化或掩码已过时时改为读取权限缓存。
+     */
+    public CompiledPermissions permissionsOf(AccessToken token) {
+        return userPermissionCache.resolve(token.getUserId(), token.getModelVersion(), token.issuedAt, token.mask);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 解码并校验通过的令牌。
+     */
+    public static final class AccessToken {
+        private final int userId;
+        private final long modelVersion;
+        private final long issuedAt;
+        private final long[] mask;
+
+        AccessToken(int userId, long modelVersion, long issuedAt, long[] mask) {
+            this.userId = userId;
+            this.modelVersion = modelVersion;
+            this.issuedAt = issuedAt;
+            this.mask = mask;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public long getModelVersion() {
+            return modelVersion;
+        }
+    }
+}
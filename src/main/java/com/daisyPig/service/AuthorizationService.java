@@ -0,0 +1,45 @@
+package com.daisyPig.service;
+
+import com.daisyPig.cache.CompiledPermissions;
+import com.daisyPig.cache.RbacCatalog;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.AuthzCheckRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class AuthorizationService {
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+
+    @Autowired
+    private RbacCatalog rbacCatalog;
+
+    /**
+     * 批量判断 (用户, 权限) 是否成立，结果与请求顺序一致。
+     * 所有涉及的用户一次性从缓存批量获取，未命中的部分通过固定次数的批量查询加载。
+     */
+    public List<Boolean> check(List<AuthzCheckRequest.Check> checks) {
+        Set<Integer> userIds = new HashSet<>();
+        for (AuthzCheckRequest.Check check : checks) {
+            if (check.getUserId() != null) {
+                userIds.add(check.getUserId());
+            }
+        }
+        Map<Integer, CompiledPermissions> permissionsByUser = userPermissionCache.getAll(userIds);
+
+        List<Boolean> results = new ArrayList<>(checks.size());
+        for (AuthzCheckRequest.Check check : checks) {
+            CompiledPermissions permissions = check.getUserId() != null ? permissionsByUser.get(check.getUserId()) : null;
+            int permissionId = check.getPermission() != null ? rbacCatalog.lookupPermissionId(check.getPermission()) : -1;
+            results.add(permissions != null && permissions.has(permissionId));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,38 @@
+package com.daisyPig.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 批量写入关联前校验ID是否存在。关联表上没有外键，不校验就会写入指向不存在记录的关联。
+ */
+final class IdChecks {
+    // 每条 IN 查询携带的最大ID数量
+    private static final int CHUNK_SIZE = 1000;
+
+    private IdChecks() {
+    }
+
+    /**
+     * 返回 ids 中在 mapper 对应的表里不存在的ID，保持传入顺序。
+     */
+    static <T> List<Integer> missingIds(BaseMapper<T> mapper, Collection<Integer> ids, Function<T, Integer> idOf) {
+        Set<Integer> missing = new LinkedHashSet<>(ids);
+        List<Integer> list = new ArrayList<>(missing);
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            QueryWrapper<T> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id").in("id", list.subList(from, Math.min(from + CHUNK_SIZE, list.size())));
+            for (T row : mapper.selectList(queryWrapper)) {
+                missing.remove(idOf.apply(row));
+            }
+        }
+        return new ArrayList<>(missing);
+    }
+}
@@ -0,0 +1,89 @@
+package com.daisyPig.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 登录、注册专用的隔离线程池。
+ * bcrypt 每次约 100ms CPU，放在 Tomcat 工作线程上执行时，登录高峰会占满全部工作线程，
+ * 连带普通的鉴权读请求排队。这里用独立的有界线程池 + 有界队列承载这类请求，
+ * 队列满时立即拒绝（控制器返回 503），而不是继续堆积。
+ */
+@Slf4j
+@Component
+public class LoginBulkhead {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.login.threads:0}")
+    private int threads;
+
+    @Value("${rbac.login.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Timer queueWait;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                // 固定使用平台线程：虚拟线程模式下 bcrypt 若在虚拟线程上执行，会长时间占住载体线程
+                r -> new Thread(r, "login-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("rbac.login.bulkhead.queue.depth", executor, e -> e.getQueue().size())
+                .description("等待执行的登录/注册请求数")
+                .register(meterRegistry);
+        Gauge.builder("rbac.login.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的登录/注册请求数")
+                .register(meterRegistry);
+        queueWait = Timer.builder("rbac.login.bulkhead.wait")
+                .description("登录/注册请求在队列中的等待时间")
+                .register(meterRegistry);
+        rejected = Counter.builder("rbac.login.bulkhead.rejected")
+                .description("因队列已满被拒绝的登录/注册请求数")
+                .register(meterRegistry);
+        log.info("Login bulkhead started: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * 在隔离线程池中执行任务。队列已满时立即抛出 RejectedExecutionException。
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+package com.daisyPig.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按用户名和客户端地址限制登录尝试频率，在查库和 bcrypt 计算之前拒绝超限请求。
+ * 每个键只保存一个 AtomicLong（GCRA 算法的“理论到达时间”），判断与扣减是一次 CAS，不加锁；
+ * 键存放在有容量上限的 Caffeine 缓存中，长时间未访问的键（此时令牌已回满）自动淘汰。
+ */
+@Component
+public class LoginThrottle {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.login.throttle.username.burst:5}")
+    private int usernameBurst;
+
+    @Value("${rbac.login.throttle.username.per-minute:5}")
+    private int usernamePerMinute;
+
+    @Value("${rbac.login.throttle.ip.burst:30}")
+    private int ipBurst;
+
+    @Value("${rbac.login.throttle.ip.per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${rbac.login.throttle.max-keys:100000}")
+    private long maxKeys;
+
+    private Limit usernameLimit;
+    private Limit ipLimit;
+    private Counter usernameThrottled;
+    private Counter ipThrottled;
+
+    @PostConstruct
+    void init() {
+        usernameLimit = new Limit(usernameBurst, usernamePerMinute, maxKeys);
+        ipLimit = new Limit(ipBurst, ipPerMinute, maxKeys);
+        usernameThrottled = meterRegistry.counter("rbac.login.throttled", "key", "username");
+        ipThrottled = meterRegistry.counter("rbac.login.throttled", "key", "ip");
+    }
+
+    /**
+     * 记录一次登录尝试，超过用户名或客户端地址的限额时抛出 ThrottledException。
+     */
+    public void acquire(String username, String remoteAddress) {
+        acquire(username, remoteAddress, System.nanoTime());
+    }
+
+    void acquire(String username, String remoteAddress, long now) {
+        long wait = ipLimit.tryAcquire(remoteAddress, now);
+        if (wait > 0) {
+            ipThrottled.increment();
+            throw new ThrottledException(wait);
+        }
+        if (username != null) {
+            // MySQL 默认排序规则下用户名不区分大小写，限流键也统一为小写，避免换大小写绕过
+            wait = usernameLimit.tryAcquire(username.toLowerCase(Locale.ROOT), now);
+            if (wait > 0) {
+                usernameThrottled.increment();
+                throw new ThrottledException(wait);
+            }
+        }
+    }
+
+    private static final class Limit {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Cache<String, AtomicLong> buckets;
+
+        Limit(int burst, int perMinute, long maxKeys) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.burstNanos = intervalNanos * burst;
+            // 理论到达时间最多领先最后一次访问 burstNanos，超过这段时间未访问的键等同于满令牌，淘汰不丢失状态
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(burstNanos))
+                    .build();
+        }
+
+        // 允许时返回 0，否则返回还需等待的纳秒数
+        long tryAcquire(String key, long now) {
+            AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long wait = next - now - burstNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * 登录尝试过于频繁。
+     */
+    public static class ThrottledException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public ThrottledException(long waitNanos) {
+            super("登录尝试过于频繁，请稍后重试");
+            this.retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.daisyPig.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.daisyPig.cache.CatalogResponseCache;
+import com.daisyPig.cache.PermissionUserIndex;
+import com.daisyPig.cache.RbacCatalog;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.RolePermission;
+import com.daisyPig.entity.User;
 import com.daisyPig.mapper.PermissionMapper;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,26 +23,78 @@ public class PermissionService {
     @Autowired
     private PermissionMapper permissionMapper;
     
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+    
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+    
+    @Autowired
+    private RbacCatalog rbacCatalog;
+    
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+    
+    @Autowired
+    private PermissionUserIndex permissionUserIndex;
+    
+    @Autowired
+    private UserMapper userMapper;
+    
     public List<Permission> getAllPermissions() {
-        return permissionMapper.selectList(null);
+        return rbacCatalog.getPermissions();
+    }
+    
+    /**
+     * 按ID游标分页查询权限，可按权限名前缀过滤。
+     */
+    public CursorPage<Permission> getPermissions(Integer after, int limit, String namePrefix) {
+        return rbacCatalog.getPermissionsPage(after, CursorPage.clampLimit(limit), namePrefix);
     }
     
     public Permission getPermissionById(int id) {
-        return permissionMapper.selectById(id);
+        return rbacCatalog.getPermission(id);
+    }
+    
+    /**
+     * 按用户ID游标分页查询拥有指定权限的用户（经由任意角色）。
+     * 用户ID来自内存反向索引，只按主键回表读取当前页用户的基本信息，不做多表联查。
+     */
+    public CursorPage<User> getUsersWithPermission(int permissionId, Integer after, int limit) {
+        CursorPage<Integer> ids = permissionUserIndex.getUserIds(permissionId, after, CursorPage.clampLimit(limit));
+        if (ids.getItems().isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "username", "email", "created_at")
+                .in("id", ids.getItems())
+                .orderByAsc("id");
+        return new CursorPage<>(userMapper.selectList(queryWrapper), ids.getNextAfter());
     }
     
     @Transactional
     public void createPermission(Permission permission) {
         permissionMapper.insert(permission);
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
     
     @Transactional
     public void updatePermission(Permission permission) {
         permissionMapper.updateById(permission);
+        userPermissionCache.invalidateAll();
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
     
     @Transactional
     public void deletePermission(int id) {
         permissionMapper.deleteById(id);
+        // 表上没有外键，关联行需要在同一事务中显式删除，否则会残留并在重建索引时被重新读入
+        rolePermissionMapper.delete(new QueryWrapper<RolePermission>().eq("permission_id", id));
+        userPermissionCache.invalidateAll();
+        permissionUserIndex.removePermission(id);
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
 }
\ No newline at end of file
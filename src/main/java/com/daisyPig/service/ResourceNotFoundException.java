@@ -0,0 +1,10 @@
+package com.daisyPig.service;
+
+/**
+ * 请求引用的用户、角色或权限不存在。
+ */
+public class ResourceNotFoundException extends RuntimeException {
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,26 +1,61 @@
 package com.daisyPig.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.daisyPig.cache.CatalogResponseCache;
+import com.daisyPig.cache.PermissionUserIndex;
+import com.daisyPig.cache.RbacCatalog;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.entity.Permission;
 import com.daisyPig.entity.Role;
 import com.daisyPig.entity.RolePermission;
+import com.daisyPig.entity.UserRole;
+import com.daisyPig.mapper.PermissionMapper;
 import com.daisyPig.mapper.RoleMapper;
 import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class RoleService {
+    // 每条多行 INSERT 语句携带的最大行数
+    private static final int BATCH_SIZE = 1000;
+    
     @Autowired
     private RoleMapper roleMapper;
     
     @Autowired
     private RolePermissionMapper rolePermissionMapper;
     
+    @Autowired
+    private PermissionMapper permissionMapper;
+    
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+    
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+    
+    @Autowired
+    private RbacCatalog rbacCatalog;
+    
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+    
+    @Autowired
+    private PermissionUserIndex permissionUserIndex;
+    
     public Role getRoleWithPermissions(int roleId) {
-        Role role = roleMapper.selectById(roleId);
+        Role role = rbacCatalog.getRole(roleId);
         if (role != null) {
             role.setPermissions(rolePermissionMapper.getPermissionsByRoleId(roleId));
         }
@@ -28,48 +63,131 @@ public class RoleService {
     }
 
     public Role getRoleByRoleName(String roleName) {
-        return roleMapper.getRoleByRoleName(roleName);
+        return rbacCatalog.getRoleByName(roleName);
     }
     
     public List<Role> getAllRoles() {
-        return roleMapper.selectList(null);
+        return rbacCatalog.getRoles();
+    }
+    
+    /**
+     * 按ID游标分页查询角色，可按角色名前缀过滤。
+     */
+    public CursorPage<Role> getRoles(Integer after, int limit, String namePrefix) {
+        return rbacCatalog.getRolesPage(after, CursorPage.clampLimit(limit), namePrefix);
     }
     
     @Transactional
     public void createRole(Role role) {
         roleMapper.insert(role);
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
     
     @Transactional
     public void updateRole(Role role) {
         roleMapper.updateById(role);
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
     
     @Transactional
     public void deleteRole(int roleId) {
         roleMapper.deleteById(roleId);
-        // 关联表的数据会通过外键级联删除
+        // 表上没有外键，关联行需要在同一事务中显式删除，否则会残留并在重建索引时被重新读入
+        userRoleMapper.delete(new QueryWrapper<UserRole>().eq("role_id", roleId));
+        rolePermissionMapper.delete(new QueryWrapper<RolePermission>().eq("role_id", roleId));
+        userPermissionCache.invalidateRole(roleId);
+        permissionUserIndex.removeRole(roleId);
+        rbacCatalog.refresh();
+        catalogResponseCache.invalidate();
     }
     
+    /**
+     * 为角色添加权限。单条 INSERT IGNORE 语句，无需先查询，也不会因并发重复插入而报主键冲突。
+     * 返回是否新增了关联；角色或权限不存在时抛出 ResourceNotFoundException。
+     */
+    public boolean addPermissionToRole(int roleId, int permissionId) {
+        boolean changed = rolePermissionMapper.insertIgnore(roleId, permissionId) > 0;
+        if (changed) {
+            userPermissionCache.invalidateRole(roleId);
+            permissionUserIndex.addRolePermission(roleId, permissionId);
+            catalogResponseCache.invalidate();
+        } else {
+            // 未插入时才查询，区分“已拥有该权限”和“角色或权限不存在”
+            requireRole(roleId);
+            requirePermission(permissionId);
+        }
+        return changed;
+    }
+    
+    /**
+     * 查询数据库确认角色存在，不存在时抛出 ResourceNotFoundException。
+     * 不使用内存目录，其它实例刚创建的角色可能还没有加载进来。
+     */
+    public void requireRole(int roleId) {
+        if (roleMapper.selectCount(new QueryWrapper<Role>().eq("id", roleId)) == 0) {
+            throw new ResourceNotFoundException("角色不存在: " + roleId);
+        }
+    }
+    
+    /**
+     * 返回 roleIds 中在数据库里不存在的角色ID。
+     */
+    public List<Integer> missingRoleIds(Collection<Integer> roleIds) {
+        return IdChecks.missingIds(roleMapper, roleIds, Role::getId);
+    }
+    
+    private void requirePermission(int permissionId) {
+        if (permissionMapper.selectCount(new QueryWrapper<Permission>().eq("id", permissionId)) == 0) {
+            throw new ResourceNotFoundException("权限不存在: " + permissionId);
+        }
+    }
+    
+    /**
+     * 批量为角色添加权限，在同一个事务中以多行 INSERT IGNORE 写入，已存在的关联计为跳过。
+     * 角色或任一权限不存在时抛出 ResourceNotFoundException 并列出不存在的ID，不写入任何关联。
+     */
     @Transactional
-    public void addPermissionToRole(int roleId, int permissionId) {
-        // 检查角色是否已有该权限
-        QueryWrapper<RolePermission> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("role_id", roleId).eq("permission_id", permissionId);
-        if (rolePermissionMapper.selectCount(queryWrapper) > 0) {
-            return; // 已有该权限，无需重复添加
+    public BulkResult addPermissionsToRole(int roleId, List<Integer> permissionIds) {
+        Set<Integer> distinctPermissionIds = new LinkedHashSet<>(permissionIds);
+        requireRole(roleId);
+        List<Integer> missingPermissionIds = IdChecks.missingIds(permissionMapper, distinctPermissionIds, Permission::getId);
+        if (!missingPermissionIds.isEmpty()) {
+            throw new ResourceNotFoundException("权限不存在: " + missingPermissionIds);
+        }
+        List<RolePermission> rows = new ArrayList<>(distinctPermissionIds.size());
+        for (Integer permissionId : distinctPermissionIds) {
+            RolePermission rolePermission = new RolePermission();
+            rolePermission.setRoleId(roleId);
+            rolePermission.setPermissionId(permissionId);
+            rows.add(rolePermission);
         }
         
-        RolePermission rolePermission = new RolePermission();
-        rolePermission.setRoleId(roleId);
-        rolePermission.setPermissionId(permissionId);
-        rolePermissionMapper.insert(rolePermission);
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            inserted += rolePermissionMapper.insertIgnoreBatch(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        if (inserted > 0) {
+            userPermissionCache.invalidateRole(roleId);
+            permissionUserIndex.addRolePermissions(roleId, distinctPermissionIds);
+            catalogResponseCache.invalidate();
+        }
+        return new BulkResult(inserted, rows.size() - inserted);
     }
     
-    @Transactional
-    public void removePermissionFromRole(int roleId, int permissionId) {
+    /**
+     * 移除角色的权限，单条 DELETE 语句。返回是否删除了关联。
+     */
+    public boolean removePermissionFromRole(int roleId, int permissionId) {
         QueryWrapper<RolePermission> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("role_id", roleId).eq("permission_id", permissionId);
-        rolePermissionMapper.delete(queryWrapper);
+        boolean changed = rolePermissionMapper.delete(queryWrapper) > 0;
+        if (changed) {
+            userPermissionCache.invalidateRole(roleId);
+            permissionUserIndex.removeRolePermission(roleId, permissionId);
+            catalogResponseCache.invalidate();
+        }
+        return changed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,470 @@
+package com.daisyPig.service;
+
+import com.daisyPig.cache.PermissionUserIndex;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.ImportProgress;
+import com.daisyPig.dto.RegisterRequest;
+import com.daisyPig.entity.Role;
+import com.daisyPig.entity.User;
+import com.daisyPig.mapper.UserMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 用户批量导入。
+ * 上传内容先落到临时文件，随后在后台按流水线处理：
+ * 解析（任务线程）-> bcrypt 计算（与 CPU 核数相同的有界线程池）-> 批量写入 users 与 user_roles（写入线程）。
+ * 同一时间只允许一个导入任务，避免多个任务争抢 CPU。
+ * 上传内容超过 rbac.import.max-size 或非空行数超过 rbac.import.max-rows 时在保存过程中直接拒绝，不启动任务。
+ * 结束的任务在 rbac.import.job-retention 内仍可查询进度，过期后不再保留。
+ */
+@Slf4j
+@Service
+public class UserImportService {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+    private static final String DEFAULT_ROLE_NAME = "RegularUser";
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserRoleMapper userRoleMapper;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PermissionUserIndex permissionUserIndex;
+
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+
+    @Autowired
+    private BCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rbac.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${rbac.import.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${rbac.import.job-retention:1h}")
+    private Duration jobRetention;
+
+    @Value("${rbac.import.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${rbac.import.max-rows:1000000}")
+    private long maxRows;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "user-import"));
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Job currentJob;
+    // 只保存已结束的任务，写入时间即结束时间，运行中的任务不会过期
+    private Cache<String, Job> finishedJobs;
+
+    @PostConstruct
+    void init() {
+        finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(jobRetention)
+                .maximumSize(MAX_FINISHED_JOBS)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // 中断正在运行的任务：已提交的批次保留，任务标记为失败，临时文件在任务线程的 finally 中删除
+        jobExecutor.shutdownNow();
+        if (!jobExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("User import executor did not terminate in time");
+        }
+    }
+
+    /**
+     * 保存上传内容并启动后台导入任务，返回任务的初始进度。已有任务在运行时抛出异常，
+     * 内容超过大小或行数上限时抛出 TooLargeException 或 TooManyRowsException。
+     */
+    public ImportProgress startImport(InputStream content, String format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("已有导入任务正在运行");
+        }
+        Path file = null;
+        Job job;
+        try {
+            file = Files.createTempFile("user-import-", "." + format);
+            save(content, file, format);
+            job = new Job(UUID.randomUUID().toString(), format, file);
+            currentJob = job;
+            jobExecutor.execute(() -> run(job));
+        } catch (IOException | RuntimeException e) {
+            // 任务没有启动，临时文件不会由任务线程删除
+            currentJob = null;
+            running.set(false);
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException deleteFailure) {
+                    e.addSuppressed(deleteFailure);
+                }
+            }
+            throw e;
+        }
+        return job.progress();
+    }
+
+    // 边保存边统计字节数和非空行数（CSV 不计表头），超限时立即停止读取
+    private void save(InputStream content, Path file, String format) throws IOException {
+        long rowLimit = FORMAT_CSV.equals(format) ? maxRows + 1 : maxRows;
+        long bytes = 0;
+        long rows = 0;
+        boolean blank = true;
+        byte[] buffer = new byte[8192];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                bytes += read;
+                if (bytes > maxSize.toBytes()) {
+                    throw new TooLargeException(maxSize);
+                }
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        blank = true;
+                    } else if (blank && b != ' ' && b != '\t' && b != '\r') {
+                        blank = false;
+                        if (++rows > rowLimit) {
+                            throw new TooManyRowsException(maxRows);
+                        }
+                    }
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    public ImportProgress getProgress(String jobId) {
+        Job job = currentJob;
+        if (job == null || !job.id.equals(jobId)) {
+            job = finishedJobs.getIfPresent(jobId);
+        }
+        return job != null ? job.progress() : null;
+    }
+
+    private void run(Job job) {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        // 有界队列 + CallerRunsPolicy：哈希跟不上时解析线程自己参与计算，形成背压
+        ThreadPoolExecutor hashPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), r -> new Thread(r, "user-import-hash"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        BlockingQueue<User> hashedUsers = new ArrayBlockingQueue<>(batchSize * 4);
+        Thread writer = new Thread(() -> write(job, hashedUsers), "user-import-writer");
+        try {
+            Role defaultRole = roleService.getRoleByRoleName(DEFAULT_ROLE_NAME);
+            if (defaultRole == null) {
+                throw new IllegalStateException("默认角色 " + DEFAULT_ROLE_NAME + " 不存在");
+            }
+            job.roleId = defaultRole.getId();
+            writer.start();
+
+            try (BufferedReader reader = Files.newBufferedReader(job.file, StandardCharsets.UTF_8)) {
+                String line;
+                boolean header = FORMAT_CSV.equals(job.format);
+                while ((line = reader.readLine()) != null && !job.failed()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedException("导入任务被中断");
+                    }
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    if (header) {
+                        header = false;
+                        continue;
+                    }
+                    RegisterRequest record = parse(line, job.format);
+                    if (record == null) {
+                        job.invalid.incrementAndGet();
+                        continue;
+                    }
+                    job.parsed.incrementAndGet();
+                    hashPool.execute(() -> hash(job, record, hashedUsers));
+                }
+            }
+            hashPool.shutdown();
+            hashPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            hashedUsers.put(Job.END);
+            writer.join();
+            if (!job.failed()) {
+                job.state = "COMPLETED";
+            }
+            ImportProgress progress = job.progress();
+            log.info("User import {} {}: inserted={}, skipped={}, invalid={}, {} users/s", job.id, job.state,
+                    progress.getInserted(), progress.getSkipped(), progress.getInvalid(),
+                    String.format("%.1f", progress.getUsersPerSecond()));
+        } catch (Exception e) {
+            log.error("User import {} failed", job.id, e);
+            job.fail(e);
+            hashPool.shutdownNow();
+            writer.interrupt();
+        } finally {
+            // 按用户名分配角色拿不到新用户的ID，导入结束后（含失败时已提交的批次）从数据库把该角色的用户并入反向索引
+            if (job.roleId > 0) {
+                try {
+                    permissionUserIndex.mergeRoleFromDatabase(job.roleId);
+                } catch (Exception e) {
+                    log.warn("Failed to refresh permission user index for role {}", job.roleId, e);
+                }
+            }
+            job.finishedAt = System.nanoTime();
+            // 先放入已结束任务再清除当前任务，查询进度时不会出现两处都找不到的间隙
+            finishedJobs.put(job.id, job);
+            currentJob = null;
+            running.set(false);
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException e) {
+                log.warn("Failed to delete import file {}", job.file, e);
+            }
+        }
+    }
+
+    private void hash(Job job, RegisterRequest record, BlockingQueue<User> hashedUsers) {
+        try {
+            User user = new User();
+            user.setUsername(record.getUsername());
+            user.setEmail(record.getEmail());
+            user.setCreatedAt(LocalDateTime.now());
+            if (BCRYPT_PATTERN.matcher(record.getPassword()).matches()) {
+                // 旧系统中已经是 bcrypt 哈希的密码直接沿用
+                user.setPassword(record.getPassword());
+                job.reusedHashes.incrementAndGet();
+            } else {
+                user.setPassword(meterRegistry.timer("rbac.password.hash", "operation", "encode")
+                        .record(() -> passwordEncoder.encode(record.getPassword())));
+                job.hashed.incrementAndGet();
+            }
+            hashedUsers.put(user);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Job job, BlockingQueue<User> hashedUsers) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<User> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                User user = hashedUsers.take();
+                if (user != Job.END) {
+                    batch.add(user);
+                    hashedUsers.drainTo(batch, batchSize - batch.size());
+                }
+                boolean end = user == Job.END || batch.remove(Job.END);
+                if (batch.size() >= batchSize || (end && !batch.isEmpty())) {
+                    List<User> toWrite = batch;
+                    transactionTemplate.executeWithoutResult(status -> writeBatch(job, toWrite));
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (end) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("User import {} failed while writing", job.id, e);
+            job.fail(e);
+            // 继续消费直到结束标记，避免哈希线程阻塞在已满的队列上
+            try {
+                while (hashedUsers.take() != Job.END) {
+                    // 丢弃
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 每批四条语句：查询已存在的用户名、多行插入新用户、按用户名分配默认角色、取回新用户的ID。
+    // 导入前可能有人以这些ID查询过权限并缓存了空集合，提交后失效
+    private void writeBatch(Job job, List<User> batch) {
+        Map<String, User> byUsername = new LinkedHashMap<>();
+        for (User user : batch) {
+            byUsername.putIfAbsent(user.getUsername(), user);
+        }
+        for (String existing : userMapper.selectExistingUsernames(byUsername.keySet())) {
+            byUsername.remove(existing);
+        }
+        int inserted = 0;
+        if (!byUsername.isEmpty()) {
+            inserted = userMapper.insertIgnoreBatch(new ArrayList<>(byUsername.values()));
+            userRoleMapper.insertRoleForUsernames(job.roleId, byUsername.keySet());
+            userPermissionCache.invalidateUsers(userMapper.selectIdsByUsernames(byUsername.keySet()));
+        }
+        job.inserted.addAndGet(inserted);
+        job.skipped.addAndGet(batch.size() - inserted);
+    }
+
+    private RegisterRequest parse(String line, String format) {
+        RegisterRequest record;
+        if (FORMAT_NDJSON.equals(format)) {
+            try {
+                record = objectMapper.readValue(line, RegisterRequest.class);
+            } catch (IOException e) {
+                return null;
+            }
+        } else {
+            List<String> fields = splitCsv(line);
+            if (fields.size() < 2) {
+                return null;
+            }
+            record = new RegisterRequest(fields.get(0).trim(), fields.get(1),
+                    fields.size() > 2 && !fields.get(2).isBlank() ? fields.get(2).trim() : null);
+        }
+        if (record.getUsername() == null || record.getUsername().isBlank() || record.getUsername().length() > 50
+                || record.getPassword() == null || record.getPassword().isEmpty()) {
+            return null;
+        }
+        return record;
+    }
+
+    // CSV 列顺序：username,password,email；支持双引号包裹的字段和 "" 转义
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 上传内容超过 rbac.import.max-size。
+     */
+    public static class TooLargeException extends RuntimeException {
+        public TooLargeException(DataSize maxSize) {
+            super("导入文件不能超过 " + maxSize.toMegabytes() + "MB");
+        }
+    }
+
+    /**
+     * 上传内容的记录数超过 rbac.import.max-rows。
+     */
+    public static class TooManyRowsException extends RuntimeException {
+        public TooManyRowsException(long maxRows) {
+            super("单次导入不能超过 " + maxRows + " 条记录");
+        }
+    }
+
+    private static final class Job {
+        // 写入线程的结束标记
+        static final User END = new User();
+
+        final String id;
+        final String format;
+        final Path file;
+        final long startedAt = System.nanoTime();
+        volatile long finishedAt;
+        volatile int roleId;
+        volatile String state = "RUNNING";
+        volatile String error;
+        final AtomicLong parsed = new AtomicLong();
+        final AtomicLong hashed = new AtomicLong();
+        final AtomicLong reusedHashes = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong invalid = new AtomicLong();
+
+        Job(String id, String format, Path file) {
+            this.id = id;
+            this.format = format;
+            this.file = file;
+        }
+
+        boolean failed() {
+            return "FAILED".equals(state);
+        }
+
+        void fail(Exception e) {
+            error = e.getMessage();
+            state = "FAILED";
+        }
+
+        ImportProgress progress() {
+            long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(end - startedAt);
+            long processed = inserted.get() + skipped.get();
+            double usersPerSecond = elapsedMillis > 0 ? processed * 1000.0 / elapsedMillis : 0;
+            return new ImportProgress(id, state, parsed.get(), hashed.get(), reusedHashes.get(),
+                    inserted.get(), skipped.get(), invalid.get(), elapsedMillis, usersPerSecond, error);
+        }
+    }
+}
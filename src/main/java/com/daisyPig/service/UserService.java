@@ -1,37 +1,70 @@
 package com.daisyPig.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.daisyPig.config.BcryptCalibration;
+import com.daisyPig.cache.PermissionUserIndex;
+import com.daisyPig.cache.UserPermissionCache;
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.dto.LoginRequest;
 import com.daisyPig.dto.RegisterRequest;
+import com.daisyPig.dto.UserExport;
+import com.daisyPig.dto.UserRoleRow;
 import com.daisyPig.entity.Role;
 import com.daisyPig.entity.User;
 import com.daisyPig.entity.UserRole;
-import com.daisyPig.mapper.RolePermissionMapper;
 import com.daisyPig.mapper.UserMapper;
 import com.daisyPig.mapper.UserRoleMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 @Service
 public class UserService {
+    // 每条多行 INSERT 语句携带的最大行数
+    private static final int BATCH_SIZE = 1000;
+    // 导出时每写出多少个用户刷新一次输出流
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
+    
     @Autowired
     private UserMapper userMapper;
     
     @Autowired
     private UserRoleMapper userRoleMapper;
     
-    @Autowired
-    private RolePermissionMapper rolePermissionMapper;
-    
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
     @Autowired
     private RoleService roleService;
+    @Autowired
+    private UserPermissionCache userPermissionCache;
+    @Autowired
+    private PermissionUserIndex permissionUserIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BcryptCalibration bcryptCalibration;
+    @Autowired
+    private LoginBulkhead loginBulkhead;
     
     @Transactional
     public User register(RegisterRequest request) {
@@ -45,7 +78,8 @@ public class UserService {
         // 创建新用户
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(meterRegistry.timer("rbac.password.hash", "operation", "encode")
+                .record(() -> passwordEncoder.encode(request.getPassword())));
         user.setEmail(request.getEmail());
         user.setCreatedAt(LocalDateTime.now());
         
@@ -57,6 +91,9 @@ public class UserService {
         Role regularUserRole = roleService.getRoleByRoleName("RegularUser");
         userRole.setRoleId(regularUserRole.getId()); // 普通用户角色ID
         userRoleMapper.insert(userRole);
+        permissionUserIndex.addUserRole(user.getId(), regularUserRole.getId());
+        // 注册前可能有人以该ID查询过权限，缓存中留有空集合
+        userPermissionCache.invalidateUser(user.getId());
         
         return user;
     }
@@ -66,28 +103,103 @@ public class UserService {
         queryWrapper.eq("username", request.getUsername());
         User user = userMapper.selectOne(queryWrapper);
         
-        if (user == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (user == null || !meterRegistry.timer("rbac.password.hash", "operation", "matches")
+                .record(() -> passwordEncoder.matches(request.getPassword(), user.getPassword()))) {
             throw new RuntimeException("用户名或密码错误");
         }
         
+        // 已存储哈希的代价与当前校准结果不一致时，异步用本次登录的明文重新计算
+        if (BcryptCalibration.strengthOf(user.getPassword()) != bcryptCalibration.getStrength()) {
+            rehashPassword(user.getId(), user.getPassword(), request.getPassword());
+        }
+        
         return user;
     }
     
+    private void rehashPassword(int userId, String oldHash, String rawPassword) {
+        try {
+            loginBulkhead.submit(() -> {
+                String newHash = meterRegistry.timer("rbac.password.hash", "operation", "encode")
+                        .record(() -> passwordEncoder.encode(rawPassword));
+                // 仅当密码在此期间没有被修改时才更新
+                UpdateWrapper<User> updateWrapper = new UpdateWrapper<>();
+                updateWrapper.eq("id", userId).eq("password", oldHash).set("password", newHash);
+                return userMapper.update(null, updateWrapper);
+            }).exceptionally(e -> {
+                log.warn("Failed to rehash password of user {}", userId, e);
+                return 0;
+            });
+        } catch (RejectedExecutionException e) {
+            // 登录线程池繁忙时放弃，下次登录再重算
+        }
+    }
+    
     public User getUserWithRoles(int userId) {
-        User user = userMapper.selectById(userId);
-        if (user != null) {
-            List<Role> roles = userRoleMapper.getRolesByUserId(userId);
-            // 为每个角色加载权限
-            for (Role role : roles) {
-                role.setPermissions(rolePermissionMapper.getPermissionsByRoleId(role.getId()));
-            }
-            user.setRoles(roles);
+        // 用户、角色、权限通过一次联表查询加载，查询次数与角色数量无关
+        return userMapper.selectUserWithRoles(userId);
+    }
+    
+    /**
+     * 按ID游标分页查询用户，可按用户名前缀和创建时间范围 [createdFrom, createdTo) 过滤。
+     * 只查询列表需要的列，不加载密码哈希；单次读取的行数受 limit 限制。
+     */
+    public CursorPage<User> getUsers(Integer after, int limit, String usernamePrefix,
+                                     LocalDateTime createdFrom, LocalDateTime createdTo) {
+        int pageSize = CursorPage.clampLimit(limit);
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "username", "email", "created_at")
+                .gt(after != null, "id", after)
+                .likeRight(usernamePrefix != null && !usernamePrefix.isEmpty(), "username", usernamePrefix)
+                .ge(createdFrom != null, "created_at", createdFrom)
+                .lt(createdTo != null, "created_at", createdTo)
+                .orderByAsc("id")
+                .last("LIMIT " + (pageSize + 1)); // 多取一条用于判断是否还有下一页
+        List<User> users = userMapper.selectList(queryWrapper);
+        
+        Integer nextAfter = null;
+        if (users.size() > pageSize) {
+            users = new ArrayList<>(users.subList(0, pageSize));
+            nextAfter = users.get(pageSize - 1).getId();
         }
-        return user;
+        return new CursorPage<>(users, nextAfter);
     }
     
-    public List<User> getAllUsers() {
-        return userMapper.selectList(null);
+    /**
+     * 以 NDJSON 格式导出全部用户及其角色名称，每行一个用户。
+     * 整个导出只执行一条联表查询，通过 MyBatis Cursor 边读边写，内存占用与用户总数无关。
+     * Cursor 需要在读取期间保持连接，因此放在只读事务中执行。返回导出的用户数。
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        long count = 0;
+        try (Cursor<UserRoleRow> cursor = userMapper.streamUsersWithRoleNames();
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            UserExport current = null;
+            for (UserRoleRow row : cursor) {
+                // 结果按用户ID排序，同一用户的多行是连续的
+                if (current == null || !current.getId().equals(row.getId())) {
+                    if (current != null) {
+                        writer.write(current);
+                        if (++count % EXPORT_FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    }
+                    current = new UserExport(row.getId(), row.getUsername(), row.getEmail(),
+                            row.getCreatedAt(), new ArrayList<>());
+                }
+                if (row.getRoleName() != null) {
+                    current.getRoles().add(row.getRoleName());
+                }
+            }
+            if (current != null) {
+                writer.write(current);
+                count++;
+                // 分隔符只写在记录之间，补上最后一行的换行符
+                writer.flush();
+                out.write('\n');
+            }
+        }
+        return count;
     }
     
     @Transactional
@@ -105,28 +217,88 @@ public class UserService {
     @Transactional
     public void deleteUser(int userId) {
         userMapper.deleteById(userId);
-        // 关联表的数据会通过外键级联删除
+        // 表上没有外键，关联行需要在同一事务中显式删除，否则会残留并在重建索引时被重新读入
+        userRoleMapper.delete(new QueryWrapper<UserRole>().eq("user_id", userId));
+        userPermissionCache.invalidateUser(userId);
+        permissionUserIndex.removeUser(userId);
+    }
+    
+    /**
+     * 为用户分配角色。单条 INSERT IGNORE 语句，无需先查询，也不会因并发重复插入而报主键冲突。
+     * 返回是否新增了关联；用户或角色不存在时抛出 ResourceNotFoundException。
+     */
+    public boolean assignRoleToUser(int userId, int roleId) {
+        boolean changed = userRoleMapper.insertIgnore(userId, roleId) > 0;
+        if (changed) {
+            userPermissionCache.invalidateUser(userId);
+            permissionUserIndex.addUserRole(userId, roleId);
+        } else {
+            // 未插入时才查询，区分“已拥有该角色”和“用户或角色不存在”
+            requireUser(userId);
+            roleService.requireRole(roleId);
+        }
+        return changed;
+    }
+
+    private void requireUser(int userId) {
+        if (userMapper.selectCount(new QueryWrapper<User>().eq("id", userId)) == 0) {
+            throw new ResourceNotFoundException("用户不存在: " + userId);
+        }
     }
     
+    /**
+     * 批量为用户分配角色：userIds 与 roleIds 的每个组合各分配一次。
+     * 先校验全部用户和角色存在，有不存在的ID时抛出 ResourceNotFoundException 并列出这些ID，不写入任何关联；
+     * 之后在同一个事务中以多行 INSERT IGNORE 写入，已存在的关联计为跳过。
+     */
     @Transactional
-    public void assignRoleToUser(int userId, int roleId) {
-        // 检查用户是否已有该角色
-        QueryWrapper<UserRole> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId).eq("role_id", roleId);
-        if (userRoleMapper.selectCount(queryWrapper) > 0) {
-            return; // 已有该角色，无需重复分配
+    public BulkResult assignRolesToUsers(List<Integer> userIds, List<Integer> roleIds) {
+        Set<Integer> distinctUserIds = new LinkedHashSet<>(userIds);
+        Set<Integer> distinctRoleIds = new LinkedHashSet<>(roleIds);
+        List<Integer> missingUserIds = IdChecks.missingIds(userMapper, distinctUserIds, User::getId);
+        List<Integer> missingRoleIds = roleService.missingRoleIds(distinctRoleIds);
+        if (!missingUserIds.isEmpty() || !missingRoleIds.isEmpty()) {
+            List<String> reasons = new ArrayList<>(2);
+            if (!missingUserIds.isEmpty()) {
+                reasons.add("用户不存在: " + missingUserIds);
+            }
+            if (!missingRoleIds.isEmpty()) {
+                reasons.add("角色不存在: " + missingRoleIds);
+            }
+            throw new ResourceNotFoundException(String.join("；", reasons));
+        }
+        List<UserRole> rows = new ArrayList<>(distinctUserIds.size() * distinctRoleIds.size());
+        for (Integer userId : distinctUserIds) {
+            for (Integer roleId : distinctRoleIds) {
+                UserRole userRole = new UserRole();
+                userRole.setUserId(userId);
+                userRole.setRoleId(roleId);
+                rows.add(userRole);
+            }
         }
         
-        UserRole userRole = new UserRole();
-        userRole.setUserId(userId);
-        userRole.setRoleId(roleId);
-        userRoleMapper.insert(userRole);
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            inserted += userRoleMapper.insertIgnoreBatch(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        if (inserted > 0) {
+            distinctUserIds.forEach(userPermissionCache::invalidateUser);
+            permissionUserIndex.addUserRoles(distinctUserIds, distinctRoleIds);
+        }
+        return new BulkResult(inserted, rows.size() - inserted);
     }
     
-    @Transactional
-    public void removeRoleFromUser(int userId, int roleId) {
+    /**
+     * 移除用户的角色，单条 DELETE 语句。返回是否删除了关联。
+     */
+    public boolean removeRoleFromUser(int userId, int roleId) {
         QueryWrapper<UserRole> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("user_id", userId).eq("role_id", roleId);
-        userRoleMapper.delete(queryWrapper);
+        boolean changed = userRoleMapper.delete(queryWrapper) > 0;
+        if (changed) {
+            userPermissionCache.invalidateUser(userId);
+            permissionUserIndex.removeUserRole(userId, roleId);
+        }
+        return changed;
     }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.daisyPig.session;
+
+import com.daisyPig.entity.SessionRecord;
+import com.daisyPig.mapper.SessionRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 保存在数据库 http_sessions 表中的会话仓库，供多个实例共享会话。
+ * 属性变化时整行写入；只有访问时间变化时，距离上次落库超过 touchInterval 才写一次访问时间，
+ * 因此每个会话在每个间隔内最多一次写入，而不是每个请求一次。代价是过期时间最多提前 touchInterval。
+ */
+@Slf4j
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.JdbcSession> {
+    private final SessionRecordMapper sessionRecordMapper;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration touchInterval;
+
+    public JdbcSessionRepository(SessionRecordMapper sessionRecordMapper,
+                                 Duration defaultMaxInactiveInterval, Duration touchInterval) {
+        this.sessionRecordMapper = sessionRecordMapper;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.touchInterval = touchInterval;
+    }
+
+    @Override
+    public JdbcSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new JdbcSession(session, true);
+    }
+
+    @Override
+    public void save(JdbcSession session) {
+        MapSession delegate = session.delegate;
+        if (session.originalId != null && !session.originalId.equals(delegate.getId())) {
+            // 会话ID变更（防会话固定）：删除旧行，按新ID整行写入
+            sessionRecordMapper.deleteById(session.originalId);
+            session.isNew = true;
+        }
+        long lastAccess = delegate.getLastAccessedTime().toEpochMilli();
+        if (session.isNew || session.changed) {
+            SessionRecord record = new SessionRecord();
+            record.setId(delegate.getId());
+            record.setCreationTime(delegate.getCreationTime().toEpochMilli());
+            record.setLastAccessTime(lastAccess);
+            record.setMaxInactiveInterval((int) delegate.getMaxInactiveInterval().toSeconds());
+            record.setExpiryTime(expiryTime(delegate, lastAccess));
+            record.setAttributes(SessionAttributesCodec.encode(session.attributes()));
+            sessionRecordMapper.upsert(record);
+        } else if (lastAccess - session.persistedLastAccess >= touchInterval.toMillis()) {
+            sessionRecordMapper.touch(delegate.getId(), lastAccess, expiryTime(delegate, lastAccess));
+        } else {
+            return;
+        }
+        session.isNew = false;
+        session.changed = false;
+        session.originalId = delegate.getId();
+        session.persistedLastAccess = lastAccess;
+    }
+
+    @Override
+    public JdbcSession findById(String id) {
+        SessionRecord record = sessionRecordMapper.selectById(id);
+        if (record == null) {
+            return null;
+        }
+        MapSession session = new MapSession(id);
+        session.setCreationTime(Instant.ofEpochMilli(record.getCreationTime()));
+        session.setLastAccessedTime(Instant.ofEpochMilli(record.getLastAccessTime()));
+        session.setMaxInactiveInterval(Duration.ofSeconds(record.getMaxInactiveInterval()));
+        if (session.isExpired()) {
+            sessionRecordMapper.deleteById(id);
+            return null;
+        }
+        try {
+            for (Map.Entry<String, Object> attribute : SessionAttributesCodec.decode(record.getAttributes()).entrySet()) {
+                session.setAttribute(attribute.getKey(), attribute.getValue());
+            }
+        } catch (RuntimeException e) {
+            // 无法解码（例如升级后类已不存在）时视为会话不存在，用户重新登录即可
+            log.warn("Discarding undecodable session {}", id, e);
+            sessionRecordMapper.deleteById(id);
+            return null;
+        }
+        JdbcSession loaded = new JdbcSession(session, false);
+        loaded.persistedLastAccess = record.getLastAccessTime();
+        return loaded;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sessionRecordMapper.deleteById(id);
+    }
+
+    /**
+     * 分批删除已过期的会话，返回删除的行数。
+     */
+    public int deleteExpired(int batchSize) {
+        long now = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = sessionRecordMapper.deleteExpired(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    private static long expiryTime(MapSession session, long lastAccess) {
+        Duration maxInactive = session.getMaxInactiveInterval();
+        // 负数表示永不过期
+        return maxInactive.isNegative() ? Long.MAX_VALUE : lastAccess + maxInactive.toMillis();
+    }
+
+    /**
+     * 记录是否需要整行写入，以及上次落库的访问时间。
+     */
+    public static final class JdbcSession implements Session {
+        private final MapSession delegate;
+        private boolean isNew;
+        private boolean changed;
+        private String originalId;
+        private long persistedLastAccess;
+
+        JdbcSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+            this.originalId = isNew ? null : delegate.getId();
+        }
+
+        private Map<String, Object> attributes() {
+            Map<String, Object> attributes = new HashMap<>();
+            for (String name : delegate.getAttributeNames()) {
+                attributes.put(name, delegate.getAttribute(name));
+            }
+            return attributes;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.daisyPig.session;
+
+import com.daisyPig.dto.SessionPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 会话属性的二进制编码。
+ * 格式：[格式版本 1B][属性个数 2B]，每个属性为 [名称 UTF][类型 1B][值]。
+ * 登录主体 SessionPrincipal 按其紧凑格式写出（无 Java 序列化的类描述开销），其它属性退回 Java 序列化。
+ * 类型 1 是不含生成时间的旧版登录主体，只用于读取升级前写入的会话。
+ * 会话行可能被篡改，退回 Java 序列化的属性只允许还原登录主体和 java.lang、java.util、java.time 中的类，
+ * 并限制长度、嵌套深度和对象个数。
+ */
+public final class SessionAttributesCodec {
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte TYPE_LEGACY_PRINCIPAL = 1;
+    private static final byte TYPE_SERIALIZED = 2;
+    private static final byte TYPE_PRINCIPAL = 3;
+    private static final int MAX_SERIALIZED_BYTES = 64 * 1024;
+    private static final ObjectInputFilter SERIALIZED_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxbytes=" + MAX_SERIALIZED_BYTES + ";maxdepth=10;maxrefs=1000;maxarray=10000;"
+                    + SessionPrincipal.class.getName() + ";" + SessionPrincipal.class.getName() + "$*;"
+                    + "java.lang.*;java.util.*;java.time.*;!*");
+
+    private SessionAttributesCodec() {
+    }
+
+    public static byte[] encode(Map<String, Object> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(attributes.size());
+            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                Object value = attribute.getValue();
+                if (value instanceof SessionPrincipal principal) {
+                    out.writeByte(TYPE_PRINCIPAL);
+                    principal.writeTo(out);
+                } else if (value instanceof Serializable) {
+                    out.writeByte(TYPE_SERIALIZED);
+                    byte[] serialized = serialize(value);
+                    out.writeInt(serialized.length);
+                    out.write(serialized);
+                } else {
+                    throw new IllegalArgumentException("Session attribute '" + attribute.getKey()
+                            + "' is not serializable: " + value.getClass().getName());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Map<String, Object> decode(byte[] encoded) {
+        Map<String, Object> attributes = new HashMap<>();
+        if (encoded == null || encoded.length == 0) {
+            return attributes;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported session attribute format: " + version);
+            }
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                if (type == TYPE_PRINCIPAL) {
+                    attributes.put(name, SessionPrincipal.readFrom(in));
+                } else if (type == TYPE_LEGACY_PRINCIPAL) {
+                    attributes.put(name, SessionPrincipal.readLegacyFrom(in));
+                } else if (type == TYPE_SERIALIZED) {
+                    int length = in.readInt();
+                    // 先校验长度再分配，避免篡改的长度字段导致分配巨大的数组
+                    if (length < 0 || length > MAX_SERIALIZED_BYTES || length > in.available()) {
+                        throw new IOException("Invalid serialized session attribute length: " + length);
+                    }
+                    byte[] serialized = new byte[length];
+                    in.readFully(serialized);
+                    attributes.put(name, deserialize(serialized));
+                } else {
+                    throw new IOException("Unknown session attribute type: " + type);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return attributes;
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] serialized) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            in.setObjectInputFilter(SERIALIZED_FILTER);
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+-- 建表语句，与 README 中的初始化表一致，可重复执行
+-- 使用内嵌 H2（MySQL 模式）时由 Spring Boot 启动时自动执行；连接 MySQL 时不会自动执行
+CREATE TABLE IF NOT EXISTS permissions (
+    id              INT AUTO_INCREMENT PRIMARY KEY,
+    permission_name VARCHAR(50) NOT NULL,
+    description     TEXT NULL,
+    CONSTRAINT permission_name UNIQUE (permission_name)
+);
+
+CREATE TABLE IF NOT EXISTS role_permissions (
+    role_id       INT NOT NULL,
+    permission_id INT NOT NULL,
+    PRIMARY KEY (role_id, permission_id),
+    INDEX permission_id (permission_id)
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    role_name   VARCHAR(50) NOT NULL,
+    description TEXT NULL,
+    CONSTRAINT role_name UNIQUE (role_name)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id INT NOT NULL,
+    role_id INT NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    INDEX role_id (role_id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id         INT AUTO_INCREMENT PRIMARY KEY,
+    username   VARCHAR(50) NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    email      VARCHAR(100) NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NULL,
+    CONSTRAINT username UNIQUE (username),
+    INDEX created_at (created_at)
+);
+
+CREATE TABLE IF NOT EXISTS http_sessions (
+    id                    CHAR(36) PRIMARY KEY,
+    creation_time         BIGINT NOT NULL,
+    last_access_time      BIGINT NOT NULL,
+    max_inactive_interval INT NOT NULL,
+    expiry_time           BIGINT NOT NULL,
+    attributes            BLOB NULL,
+    INDEX expiry_time (expiry_time)
+);
@@ -0,0 +1,81 @@
+package com.daisyPig.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditRingBufferTest {
+
+    /**
+     * 测试事件按写入顺序取出，缓冲区满时丢弃并计数。
+     */
+    @Test
+    void offerAndDrain_DropsWhenFull() {
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            ringBuffer.offer(i, i, 0, AuditLogFormat.OUTCOME_ALLOWED);
+        }
+        assertEquals(4, ringBuffer.size());
+        assertEquals(2, ringBuffer.dropped());
+
+        List<Integer> userIds = new ArrayList<>();
+        assertEquals(4, ringBuffer.drain((timestamp, userId, routeId, outcome) -> userIds.add(userId), 10));
+        assertEquals(List.of(0, 1, 2, 3), userIds);
+
+        // 消费后槽位可以复用
+        assertTrue(ringBuffer.offer(6, 6, 0, AuditLogFormat.OUTCOME_DENIED));
+        assertEquals(1, ringBuffer.drain((timestamp, userId, routeId, outcome) -> assertEquals(6, userId), 10));
+    }
+
+    /**
+     * 测试多个生产者并发写入时，每条事件恰好被消费一次。
+     */
+    @Test
+    void concurrentProducers_NoLostOrDuplicatedEvents() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        AuditRingBuffer ringBuffer = new AuditRingBuffer(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ringBuffer.offer(i, producer, i, AuditLogFormat.OUTCOME_ALLOWED)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // 每个生产者的事件应按其写入顺序出现
+        int[] next = new int[producers];
+        start.countDown();
+        long consumed = 0;
+        while (consumed < (long) producers * perProducer) {
+            consumed += ringBuffer.drain((timestamp, userId, routeId, outcome) -> {
+                assertEquals(next[userId], routeId);
+                next[userId]++;
+            }, 256);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int count : next) {
+            assertEquals(perProducer, count);
+        }
+        assertEquals(0, ringBuffer.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.daisyPig.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSegmentWriterTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 测试写满后切换段文件，每个段都带有接口定义，读取目录时按写入顺序还原全部记录。
+     */
+    @Test
+    void writeAndRead_RotatesSegments() throws IOException {
+        AuditSegmentWriter writer = new AuditSegmentWriter(directory, 64 * 1024);
+        writer.defineRoute(0, "UserController#getUserById", "allOf=user:view anyOf=");
+        writer.defineRoute(1, "UserController#deleteUser", "allOf=user:delete anyOf=");
+        int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            writer.append(1_000L + i, i, i % 2,
+                    i % 2 == 0 ? AuditLogFormat.OUTCOME_ALLOWED : AuditLogFormat.OUTCOME_DENIED);
+        }
+        writer.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditLogReader.read(directory, records::add);
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            AuditRecord record = records.get(i);
+            assertEquals(1_000L + i, record.getTimestamp());
+            assertEquals(i, record.getUserId());
+        }
+        AuditRecord last = records.get(count - 1);
+        assertEquals("UserController#deleteUser", last.getHandler());
+        assertEquals("allOf=user:delete anyOf=", last.getRequirement());
+        assertEquals("denied", last.getOutcomeName());
+    }
+
+    /**
+     * 测试重启后从下一个段序号开始写，不覆盖已有段文件。
+     */
+    @Test
+    void reopen_ContinuesWithNextSegment() throws IOException {
+        AuditSegmentWriter first = new AuditSegmentWriter(directory, 64 * 1024);
+        first.defineRoute(0, "RoleController#getRoleById", "allOf=role:view anyOf=");
+        first.append(1L, 7, 0, AuditLogFormat.OUTCOME_ALLOWED);
+        first.close();
+
+        AuditSegmentWriter second = new AuditSegmentWriter(directory, 64 * 1024);
+        assertNotEquals(first.currentSegment(), second.currentSegment());
+        second.defineRoute(0, "RoleController#getRoleById", "allOf=role:view anyOf=");
+        second.append(2L, 8, 0, AuditLogFormat.OUTCOME_UNAUTHENTICATED);
+        second.close();
+
+        List<AuditRecord> records = new ArrayList<>();
+        AuditLogReader.read(directory, records::add);
+        assertEquals(2, records.size());
+        assertEquals(7, records.get(0).getUserId());
+        assertEquals("unauthenticated", records.get(1).getOutcomeName());
+    }
+}
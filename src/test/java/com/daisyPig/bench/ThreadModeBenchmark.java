@@ -0,0 +1,143 @@
+package com.daisyPig.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 对运行中的实例压测 GET /api/users/{id} 和 POST /api/auth/login，输出吞吐量和 p50/p99 延迟。
+ * 分别以 spring.threads.virtual.enabled=false/true 启动同一实例各跑一次，对比两种线程模式。
+ * 不属于常规测试（类名不以 Test 结尾，且需要 bench.base-url），运行方式：
+ * <pre>
+ * mvn test -Dtest=ThreadModeBenchmark -Dbench.base-url=http://127.0.0.1:9081 \
+ *     -Dbench.username=admin -Dbench.password=admin123 -Dbench.user-id=1
+ * </pre>
+ * 压测登录路径时需先调高被测实例的 rbac.login.throttle.* 限额，否则绝大多数请求会被限流为 429。
+ */
+@EnabledIfSystemProperty(named = "bench.base-url", matches = ".+")
+class ThreadModeBenchmark {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String baseUrl = System.getProperty("bench.base-url");
+    private final String username = System.getProperty("bench.username", "admin");
+    private final String password = System.getProperty("bench.password", "admin123");
+    private final int userId = Integer.getInteger("bench.user-id", 1);
+    private final int concurrency = Integer.getInteger("bench.concurrency", 200);
+    private final Duration warmup = Duration.parse("PT" + System.getProperty("bench.warmup", "10s"));
+    private final Duration duration = Duration.parse("PT" + System.getProperty("bench.duration", "30s"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(4))
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void getUserById() throws Exception {
+        String sessionId = loginOnce().path("data").asText();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + userId))
+                .header("Cookie", "JSESSIONID=" + sessionId)
+                .GET()
+                .build();
+        run("GET /api/users/{id}", () -> request);
+    }
+
+    @Test
+    void login() throws Exception {
+        HttpRequest request = loginRequest();
+        run("POST /api/auth/login", () -> request);
+    }
+
+    private JsonNode loginOnce() throws Exception {
+        HttpResponse<String> response = client.send(loginRequest(), HttpResponse.BodyHandlers.ofString());
+        JsonNode body = OBJECT_MAPPER.readTree(response.body());
+        if (!body.path("success").asBoolean()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return body;
+    }
+
+    private HttpRequest loginRequest() throws Exception {
+        String body = OBJECT_MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * 固定并发的闭环压测：每个客户端线程收到响应后立即发出下一个请求。
+     * 预热阶段的结果丢弃，非 2xx 响应和异常计为失败，不计入延迟统计。
+     */
+    private void run(String name, Supplier<HttpRequest> requests) throws Exception {
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+        AtomicLong failures = new AtomicLong();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            results.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start >= end) {
+                        break;
+                    }
+                    boolean ok;
+                    try {
+                        int status = client.send(requests.get(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        ok = status >= 200 && status < 300;
+                    } catch (Exception e) {
+                        ok = false;
+                    }
+                    if (start < warmupEnd) {
+                        continue;
+                    }
+                    if (!ok) {
+                        failures.incrementAndGet();
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> perClient = new ArrayList<>();
+        for (Future<long[]> result : results) {
+            perClient.add(result.get());
+        }
+        clients.shutdown();
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%s: concurrency=%d, requests=%d, failures=%d, throughput=%.1f req/s, p50=%.2f ms, p99=%.2f ms%n",
+                name, concurrency, all.length, failures.get(), all.length / seconds,
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.daisyPig.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    // 两个实例共享的“数据库”
+    private final AtomicReference<List<String>> roles = new AtomicReference<>(List.of("Admin"));
+
+    private CatalogResponseCache instanceA;
+    private CatalogResponseCache instanceB;
+
+    @BeforeEach
+    void setUp() {
+        instanceA = newCache();
+        instanceB = newCache();
+    }
+
+    /**
+     * 测试版本号只在本实例内有效：实例 A 的 invalidate() 不会使实例 B 的条目失效，
+     * B 继续返回旧的响应和 ETag，直到条目超过 expire-after-write 后重新查询。
+     */
+    @Test
+    void invalidate_NotSeenByOtherInstanceUntilExpiry() {
+        String oldEtag = instanceA.respond("roles", null, roles::get).getHeaders().getETag();
+        assertEquals(oldEtag, instanceB.respond("roles", null, roles::get).getHeaders().getETag());
+
+        roles.set(List.of("Admin", "Auditor"));
+        instanceA.invalidate();
+
+        ResponseEntity<byte[]> fromA = instanceA.respond("roles", null, roles::get);
+        assertEquals("[\"Admin\",\"Auditor\"]", body(fromA));
+        String newEtag = fromA.getHeaders().getETag();
+        assertNotEquals(oldEtag, newEtag);
+
+        ResponseEntity<byte[]> fromB = instanceB.respond("roles", null, roles::get);
+        assertEquals("[\"Admin\"]", body(fromB));
+        assertEquals(oldEtag, fromB.getHeaders().getETag());
+        assertEquals(304, instanceB.respond("roles", oldEtag, roles::get).getStatusCode().value());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        fromB = instanceB.respond("roles", oldEtag, roles::get);
+        assertEquals(200, fromB.getStatusCode().value());
+        assertEquals("[\"Admin\",\"Auditor\"]", body(fromB));
+        assertEquals(newEtag, fromB.getHeaders().getETag());
+    }
+
+    private CatalogResponseCache newCache() {
+        CatalogResponseCache cache = new CatalogResponseCache();
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWrite", Duration.ofSeconds(30));
+        cache.ticker = nanos::get;
+        cache.init();
+        return cache;
+    }
+
+    private static String body(ResponseEntity<byte[]> response) {
+        return new String(response.getBody(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.daisyPig.cache;
+
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionUserIndexDatabaseTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:permission_index;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private JdbcConnectionPool dataSource;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = JdbcConnectionPool.create(DB_URL, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM user_roles");
+            statement.execute("DELETE FROM role_permissions");
+            statement.execute("DELETE FROM users");
+            statement.execute("DELETE FROM roles");
+            statement.execute("DELETE FROM permissions");
+            statement.execute("INSERT INTO users (id, username, password) VALUES (1, 'alice', 'x'), (2, 'bob', 'x')");
+            statement.execute("INSERT INTO roles (id, role_name) VALUES (1, 'Administrator')");
+            statement.execute("INSERT INTO permissions (id, permission_name) VALUES (10, 'user:view')");
+            // 用户3、角色2、权限11 已被删除，只留下关联行
+            statement.execute("INSERT INTO user_roles (user_id, role_id) VALUES (1, 1), (2, 1), (3, 1), (2, 2)");
+            statement.execute("INSERT INTO role_permissions (role_id, permission_id) VALUES (1, 10), (2, 10), (1, 11)");
+        }
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        sqlSessionFactory = factoryBean.getObject();
+        sqlSessionFactory.getConfiguration().addMapper(UserRoleMapper.class);
+        sqlSessionFactory.getConfiguration().addMapper(RolePermissionMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    /**
+     * 测试关联表上没有外键时，构建索引会忽略指向已删除用户、角色或权限的残留关联。
+     */
+    @Test
+    void warmUp_IgnoresOrphanedLinks() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            PermissionUserIndex permissionUserIndex = new PermissionUserIndex();
+            ReflectionTestUtils.setField(permissionUserIndex, "userRoleMapper", session.getMapper(UserRoleMapper.class));
+            ReflectionTestUtils.setField(permissionUserIndex, "rolePermissionMapper", session.getMapper(RolePermissionMapper.class));
+            ReflectionTestUtils.setField(permissionUserIndex, "scanRange", 2);
+            permissionUserIndex.warmUp();
+
+            assertEquals(List.of(1, 2), permissionUserIndex.getUserIds(10, null, 10).getItems());
+            assertTrue(permissionUserIndex.getUserIds(11, null, 10).getItems().isEmpty());
+
+            permissionUserIndex.mergeRoleFromDatabase(1);
+            assertEquals(List.of(1, 2), permissionUserIndex.getUserIds(10, null, 10).getItems());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.entity.RolePermission;
+import com.daisyPig.entity.UserRole;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class PermissionUserIndexTest {
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Mock
+    private RolePermissionMapper rolePermissionMapper;
+
+    @InjectMocks
+    private PermissionUserIndex permissionUserIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(permissionUserIndex, "scanRange", 2);
+
+        // 角色1：用户1、2、4；角色2：用户2、3；权限10 属于角色1和角色2，权限20 只属于角色2
+        when(userRoleMapper.selectMaxUserId()).thenReturn(4);
+        when(userRoleMapper.selectByUserIdRange(0, 2)).thenReturn(List.of(
+                userRole(1, 1), userRole(2, 1), userRole(2, 2)));
+        when(userRoleMapper.selectByUserIdRange(2, 4)).thenReturn(List.of(
+                userRole(3, 2), userRole(4, 1)));
+        when(rolePermissionMapper.selectExistingLinks()).thenReturn(List.of(
+                rolePermission(1, 10), rolePermission(2, 10), rolePermission(2, 20)));
+        permissionUserIndex.warmUp();
+    }
+
+    /**
+     * 测试按用户ID区间分段构建索引，查询结果为各角色用户的并集，且不重复。
+     */
+    @Test
+    void getUserIds_UnionOfRoles() {
+        assertEquals(List.of(1, 2, 3, 4), permissionUserIndex.getUserIds(10, null, 10).getItems());
+        assertEquals(List.of(2, 3), permissionUserIndex.getUserIds(20, null, 10).getItems());
+        assertTrue(permissionUserIndex.getUserIds(30, null, 10).getItems().isEmpty());
+        verify(userRoleMapper, times(2)).selectByUserIdRange(anyInt(), anyInt());
+    }
+
+    /**
+     * 测试按用户ID游标分页，最后一页的 nextAfter 为 null。
+     */
+    @Test
+    void getUserIds_Paginates() {
+        CursorPage<Integer> first = permissionUserIndex.getUserIds(10, null, 3);
+        assertEquals(List.of(1, 2, 3), first.getItems());
+        assertEquals(3, first.getNextAfter());
+
+        CursorPage<Integer> second = permissionUserIndex.getUserIds(10, first.getNextAfter(), 3);
+        assertEquals(List.of(4), second.getItems());
+        assertNull(second.getNextAfter());
+    }
+
+    /**
+     * 测试角色分配、权限分配以及删除操作对索引的增量维护（没有事务时立即生效）。
+     */
+    @Test
+    void incrementalUpdates() {
+        permissionUserIndex.addUserRole(5, 2);
+        assertEquals(List.of(2, 3, 5), permissionUserIndex.getUserIds(20, null, 10).getItems());
+
+        permissionUserIndex.removeUserRole(2, 2);
+        assertEquals(List.of(3, 5), permissionUserIndex.getUserIds(20, null, 10).getItems());
+        // 用户2仍经由角色1拥有权限10
+        assertEquals(List.of(1, 2, 3, 4, 5), permissionUserIndex.getUserIds(10, null, 10).getItems());
+
+        permissionUserIndex.addRolePermission(1, 20);
+        assertEquals(List.of(1, 2, 3, 4, 5), permissionUserIndex.getUserIds(20, null, 10).getItems());
+
+        permissionUserIndex.removeRolePermission(1, 20);
+        permissionUserIndex.removeUser(3);
+        assertEquals(List.of(5), permissionUserIndex.getUserIds(20, null, 10).getItems());
+
+        permissionUserIndex.removeRole(1);
+        assertEquals(List.of(5), permissionUserIndex.getUserIds(10, null, 10).getItems());
+
+        permissionUserIndex.removePermission(10);
+        assertTrue(permissionUserIndex.getUserIds(10, null, 10).getItems().isEmpty());
+    }
+
+    /**
+     * 测试从数据库按游标分批读取角色的用户并入索引，保留已有的用户。
+     */
+    @Test
+    void mergeRoleFromDatabase() {
+        when(userRoleMapper.selectUserIdsByRoleId(2, 0, 2)).thenReturn(List.of(6, 7));
+        when(userRoleMapper.selectUserIdsByRoleId(2, 7, 2)).thenReturn(List.of(8));
+
+        permissionUserIndex.mergeRoleFromDatabase(2);
+
+        assertEquals(List.of(2, 3, 6, 7, 8), permissionUserIndex.getUserIds(20, null, 10).getItems());
+    }
+
+    /**
+     * 测试定期重建读取其它实例写入的分配和删除，整体替换原有索引。
+     */
+    @Test
+    void rebuildPeriodically_PicksUpExternalWrites() {
+        // 其它实例：用户5获得角色2，用户1失去角色1，权限20 分配给角色1
+        when(userRoleMapper.selectMaxUserId()).thenReturn(5);
+        when(userRoleMapper.selectByUserIdRange(0, 2)).thenReturn(List.of(userRole(2, 1), userRole(2, 2)));
+        when(userRoleMapper.selectByUserIdRange(4, 5)).thenReturn(List.of(userRole(5, 2)));
+        when(rolePermissionMapper.selectExistingLinks()).thenReturn(List.of(
+                rolePermission(1, 10), rolePermission(2, 10), rolePermission(1, 20), rolePermission(2, 20)));
+        assertEquals(List.of(2, 3), permissionUserIndex.getUserIds(20, null, 10).getItems());
+
+        permissionUserIndex.rebuildPeriodically();
+
+        assertEquals(List.of(2, 3, 4, 5), permissionUserIndex.getUserIds(10, null, 10).getItems());
+        assertEquals(List.of(2, 3, 4, 5), permissionUserIndex.getUserIds(20, null, 10).getItems());
+    }
+
+    /**
+     * 测试重建读取数据库期间本实例提交的增量更新在替换快照后仍然保留。
+     */
+    @Test
+    void rebuild_KeepsLocalUpdatesMadeDuringRebuild() {
+        when(rolePermissionMapper.selectExistingLinks()).thenAnswer(invocation -> {
+            // 用户ID区间已读完，此时提交的分配不在新快照中
+            permissionUserIndex.addUserRole(9, 2);
+            return List.of(rolePermission(1, 10), rolePermission(2, 10), rolePermission(2, 20));
+        });
+
+        permissionUserIndex.rebuild();
+
+        assertEquals(List.of(2, 3, 9), permissionUserIndex.getUserIds(20, null, 10).getItems());
+
+        // 重建结束后的更新不再记录
+        reset(rolePermissionMapper);
+        when(rolePermissionMapper.selectExistingLinks()).thenReturn(List.of(rolePermission(2, 20)));
+        permissionUserIndex.rebuild();
+        assertEquals(List.of(2, 3), permissionUserIndex.getUserIds(20, null, 10).getItems());
+    }
+
+    private static UserRole userRole(int userId, int roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private static RolePermission rolePermission(int roleId, int permissionId) {
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermissionId(permissionId);
+        return rolePermission;
+    }
+}
@@ -0,0 +1,120 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.Role;
+import com.daisyPig.mapper.PermissionMapper;
+import com.daisyPig.mapper.RoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RbacCatalogTest {
+
+    @Mock
+    private RoleMapper roleMapper;
+
+    @Mock
+    private PermissionMapper permissionMapper;
+
+    @InjectMocks
+    private RbacCatalog rbacCatalog;
+
+    private static Role role(int id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setRoleName(name);
+        return role;
+    }
+
+    private static Permission permission(int id, String name) {
+        Permission permission = new Permission();
+        permission.setId(id);
+        permission.setPermissionName(name);
+        return permission;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(roleMapper.selectList(null)).thenReturn(new ArrayList<>(List.of(role(2, "RegularUser"), role(1, "Administrator"))));
+        when(permissionMapper.selectList(null)).thenReturn(new ArrayList<>(List.of(permission(7, "role:view"), permission(3, "user:view"))));
+        rbacCatalog.warmUp();
+    }
+
+    /**
+     * 测试启动加载后读取只访问内存。
+     * 多次读取角色和权限，验证每张表只查询一次，并且按ID排序返回。
+     */
+    @Test
+    void readsDoNotTouchDatabase() {
+        assertEquals(2, rbacCatalog.getRoleByName("RegularUser").getId());
+        assertEquals("Administrator", rbacCatalog.getRoles().get(0).getRoleName());
+        assertEquals("user:view", rbacCatalog.getPermissions().get(0).getPermissionName());
+        assertEquals("role:view", rbacCatalog.getPermission(7).getPermissionName());
+        assertNull(rbacCatalog.getRole(99));
+
+        verify(roleMapper, times(1)).selectList(null);
+        verify(permissionMapper, times(1)).selectList(null);
+    }
+
+    /**
+     * 测试返回的是副本，调用方修改不会污染目录。
+     */
+    @Test
+    void returnsCopies() {
+        rbacCatalog.getRoleByName("RegularUser").setRoleName("changed");
+
+        assertNotNull(rbacCatalog.getRoleByName("RegularUser"));
+    }
+
+    /**
+     * 测试权限名称被分配为从0开始的稠密ID，并且重新加载后保持不变。
+     */
+    @Test
+    void permissionIdsAreDenseAndStable() {
+        assertEquals(0, rbacCatalog.permissionId("user:view"));
+        assertEquals(1, rbacCatalog.permissionId("role:view"));
+
+        rbacCatalog.refresh();
+
+        assertEquals(0, rbacCatalog.permissionId("user:view"));
+        assertEquals(2, rbacCatalog.permissionId("role:edit"));
+    }
+
+    /**
+     * 测试其它实例写入的权限（本实例没有调用 refresh）在定期重新加载后可见。
+     */
+    @Test
+    void reloadPeriodically_PicksUpExternalWrites() {
+        when(permissionMapper.selectList(null)).thenReturn(new ArrayList<>(List.of(
+                permission(7, "role:view"), permission(3, "user:view"), permission(9, "audit:view"))));
+        assertNull(rbacCatalog.getPermission(9));
+
+        rbacCatalog.reloadPeriodically();
+
+        assertEquals("audit:view", rbacCatalog.getPermission(9).getPermissionName());
+        assertEquals(9, rbacCatalog.getPermissionsPage(7, 10, null).getItems().get(0).getId());
+        assertTrue(rbacCatalog.lookupPermissionId("audit:view") >= 0);
+    }
+
+    /**
+     * 测试游标分页：after 之后按ID升序取一页，并返回下一页游标。
+     */
+    @Test
+    void rolesPage() {
+        assertEquals(1, rbacCatalog.getRolesPage(null, 1, null).getItems().get(0).getId());
+        assertEquals(1, rbacCatalog.getRolesPage(null, 1, null).getNextAfter());
+        assertEquals(2, rbacCatalog.getRolesPage(1, 1, null).getItems().get(0).getId());
+        assertNull(rbacCatalog.getRolesPage(1, 1, null).getNextAfter());
+        assertEquals("RegularUser", rbacCatalog.getRolesPage(null, 10, "Reg").getItems().get(0).getRoleName());
+        assertTrue(rbacCatalog.getRolesPage(2, 10, null).getItems().isEmpty());
+    }
+}
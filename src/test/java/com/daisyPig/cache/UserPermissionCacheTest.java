@@ -0,0 +1,299 @@
+package com.daisyPig.cache;
+
+import com.daisyPig.dto.RolePermissionRow;
+import com.daisyPig.dto.SessionPrincipal;
+import com.daisyPig.entity.UserRole;
+import com.daisyPig.mapper.RolePermissionMapper;
+import com.daisyPig.mapper.UserRoleMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserPermissionCacheTest {
+
+    @Mock
+    private UserRoleMapper userRoleMapper;
+
+    @Mock
+    private RolePermissionMapper rolePermissionMapper;
+
+    @InjectMocks
+    private UserPermissionCache userPermissionCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RbacCatalog rbacCatalog;
+
+    // 测试时钟：纳秒计数同时驱动缓存过期和位图生成时间
+    private final AtomicLong nanos = new AtomicLong();
+
+    // 模拟的 user_roles、role_permissions 表：用户ID -> 角色ID，角色ID -> 权限名称
+    private final Map<Integer, List<Integer>> userRoles = new HashMap<>();
+    private final Map<Integer, List<String>> rolePermissions = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        rbacCatalog = new RbacCatalog();
+        meterRegistry = new SimpleMeterRegistry();
+        configure(userPermissionCache, meterRegistry);
+
+        // 用户1持有角色1（user:view），用户2没有角色
+        userRoles.put(1, List.of(1));
+        rolePermissions.put(1, List.of("user:view"));
+        when(userRoleMapper.getUserRolesByUserIds(anyCollection()))
+                .thenAnswer(invocation -> selectUserRoles(invocation.getArgument(0)));
+        when(rolePermissionMapper.getPermissionNamesByRoleIds(anyCollection()))
+                .thenAnswer(invocation -> selectPermissionNames(invocation.getArgument(0)));
+    }
+
+    /**
+     * 测试命中缓存时不再访问数据库。
+     * 连续两次校验同一用户的权限，验证用户权限只被查询一次。
+     */
+    @Test
+    void hasPermission_LoadsOnce() {
+        assertTrue(userPermissionCache.hasPermission(1, "user:view"));
+        assertTrue(userPermissionCache.hasPermission(1, "user:view"));
+        assertFalse(userPermissionCache.hasPermission(1, "user:delete"));
+
+        verify(userRoleMapper, times(1)).getUserRolesByUserIds(List.of(1));
+    }
+
+    /**
+     * 测试单个加载与批量加载走同一条路径：一次按用户ID查询角色，一次按角色ID查询权限名称。
+     */
+    @Test
+    void get_UsesTwoQueryPath() {
+        assertTrue(userPermissionCache.get(1).has(rbacCatalog.lookupPermissionId("user:view")));
+
+        verify(userRoleMapper, times(1)).getUserRolesByUserIds(List.of(1));
+        verify(rolePermissionMapper, times(1)).getPermissionNamesByRoleIds(List.of(1));
+    }
+
+    /**
+     * 测试缓存命中和未命中次数导出为指标。
+     */
+    @Test
+    void cacheMetrics_CountHitsAndMisses() {
+        userPermissionCache.hasPermission(1, "user:view");
+        userPermissionCache.hasPermission(1, "user:view");
+        userPermissionCache.hasPermission(2, "user:view");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "rbac.auth-cache").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "rbac.auth-cache").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    /**
+     * 测试没有任何角色的用户不具备任何权限，且不会查询角色权限。
+     */
+    @Test
+    void hasPermission_NoRoles() {
+        assertFalse(userPermissionCache.hasPermission(2, "user:view"));
+        verify(rolePermissionMapper, never()).getPermissionNamesByRoleIds(anyCollection());
+        assertTrue(userPermissionCache.hasPermission(1, "user:view"));
+    }
+
+    /**
+     * 测试角色变更只失效持有该角色的用户。
+     */
+    @Test
+    void invalidateRole_OnlyAffectsHolders() {
+        userPermissionCache.hasPermission(1, "user:view");
+        userPermissionCache.hasPermission(2, "user:view");
+
+        userPermissionCache.invalidateRole(1);
+        userPermissionCache.hasPermission(1, "user:view");
+        userPermissionCache.hasPermission(2, "user:view");
+
+        verify(userRoleMapper, times(2)).getUserRolesByUserIds(List.of(1));
+        verify(userRoleMapper, times(1)).getUserRolesByUserIds(List.of(2));
+    }
+
+    /**
+     * 测试加载过程中发生的角色变更不会被缓存下来。
+     * 第一次加载读取到旧权限后、写入缓存前，角色1的权限被撤销；
+     * 验证读取时识别出该条目早于失效版本并重新加载，得到撤销后的权限。
+     */
+    @Test
+    void invalidateRole_DuringLoad_DoesNotCacheStaleEntry() {
+        when(rolePermissionMapper.getPermissionNamesByRoleIds(anyCollection()))
+                .thenAnswer(invocation -> {
+                    List<RolePermissionRow> stale = selectPermissionNames(invocation.getArgument(0));
+                    rolePermissions.put(1, List.of());
+                    userPermissionCache.invalidateRole(1);
+                    return stale;
+                })
+                .thenAnswer(invocation -> selectPermissionNames(invocation.getArgument(0)));
+
+        assertFalse(userPermissionCache.hasPermission(1, "user:view"));
+        assertFalse(userPermissionCache.hasPermission(1, "user:view"));
+
+        verify(userRoleMapper, times(2)).getUserRolesByUserIds(List.of(1));
+    }
+
+    /**
+     * 测试批量加载时目录快照中还没有的权限（例如刚由其它实例创建）同样按名称计入位图。
+     */
+    @Test
+    void getAll_GrantsPermissionsMissingFromCatalog() {
+        userRoles.put(3, List.of(4));
+        rolePermissions.put(4, List.of("report:export"));
+
+        Map<Integer, CompiledPermissions> result = userPermissionCache.getAll(List.of(3, 4));
+
+        int permissionId = rbacCatalog.lookupPermissionId("report:export");
+        assertTrue(permissionId >= 0);
+        assertTrue(result.get(3).has(permissionId));
+        assertFalse(result.get(4).has(permissionId));
+    }
+
+    /**
+     * 测试用户角色变更后重新加载。
+     */
+    @Test
+    void invalidateUser_Reloads() {
+        userPermissionCache.hasPermission(1, "user:view");
+        userPermissionCache.invalidateUser(1);
+        userPermissionCache.hasPermission(1, "user:view");
+
+        verify(userRoleMapper, times(2)).getUserRolesByUserIds(List.of(1));
+    }
+
+    /**
+     * 测试批量加载过程中发生的用户角色变更不会被缓存下来。
+     * 批量加载读取到用户1的旧角色后、写入缓存前，用户1的角色被移除；
+     * 验证返回结果和之后的读取都识别出该条目早于用户的失效版本，得到移除后的权限。
+     */
+    @Test
+    void invalidateUser_DuringBulkLoad_DoesNotCacheStaleEntry() {
+        when(userRoleMapper.getUserRolesByUserIds(anyCollection()))
+                .thenAnswer(invocation -> {
+                    List<UserRole> stale = selectUserRoles(invocation.getArgument(0));
+                    userRoles.remove(1);
+                    userPermissionCache.invalidateUser(1);
+                    return stale;
+                })
+                .thenAnswer(invocation -> selectUserRoles(invocation.getArgument(0)));
+        int permissionId = rbacCatalog.permissionId("user:view");
+
+        Map<Integer, CompiledPermissions> result = userPermissionCache.getAll(List.of(1, 2));
+
+        assertFalse(result.get(1).has(permissionId));
+        assertFalse(userPermissionCache.hasPermission(1, "user:view"));
+        verify(userRoleMapper, times(2)).getUserRolesByUserIds(anyCollection());
+    }
+
+    /**
+     * 测试创建前被查询过的用户ID：缓存的空权限在用户创建（注册或导入）并失效后重新加载。
+     */
+    @Test
+    void invalidateUsers_NewUsersProbedBeforeCreation() {
+        assertFalse(userPermissionCache.getAll(List.of(7, 8)).get(7).has(rbacCatalog.permissionId("user:view")));
+
+        userRoles.put(7, List.of(1));
+        userRoles.put(8, List.of(1));
+        userPermissionCache.invalidateUsers(List.of(7, 8));
+
+        assertTrue(userPermissionCache.hasPermission(7, "user:view"));
+        assertTrue(userPermissionCache.hasPermission(8, "user:view"));
+    }
+
+    /**
+     * 测试其它实例上的撤销：模型版本只在本实例内递增，本实例签发的会话主体在 mask-max-age 内仍使用旧位图，
+     * 超过 mask-max-age 与 expire-after-write 之和后一定按用户ID读取到撤销后的权限。
+     */
+    @Test
+    void resolve_RevocationOnOtherInstance_AppliesWithinBound() {
+        UserPermissionCache otherInstance = new UserPermissionCache();
+        ReflectionTestUtils.setField(otherInstance, "userRoleMapper", userRoleMapper);
+        ReflectionTestUtils.setField(otherInstance, "rolePermissionMapper", rolePermissionMapper);
+        configure(otherInstance, new SimpleMeterRegistry());
+        int permissionId = rbacCatalog.permissionId("user:view");
+
+        SessionPrincipal principal = userPermissionCache.principalOf(1);
+        assertTrue(resolve(principal).has(permissionId));
+
+        // 另一个实例撤销角色1的权限，本实例的模型版本不变
+        rolePermissions.put(1, List.of());
+        otherInstance.invalidateRole(1);
+        assertFalse(otherInstance.hasPermission(1, "user:view"));
+
+        advance(Duration.ofSeconds(30));
+        assertTrue(resolve(principal).has(permissionId));
+
+        advance(Duration.ofMinutes(11));
+        assertFalse(resolve(principal).has(permissionId));
+    }
+
+    private CompiledPermissions resolve(SessionPrincipal principal) {
+        return userPermissionCache.resolve(principal.getUserId(), principal.getModelVersion(),
+                principal.getIssuedAt(), principal.getPermissions());
+    }
+
+    private void configure(UserPermissionCache cache, SimpleMeterRegistry registry) {
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWrite", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(cache, "maskMaxAge", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "batchSize", 1000);
+        ReflectionTestUtils.setField(cache, "rbacCatalog", rbacCatalog);
+        ReflectionTestUtils.setField(cache, "meterRegistry", registry);
+        cache.ticker = nanos::get;
+        cache.clock = clockAt(nanos.get());
+        cache.init();
+    }
+
+    private void advance(Duration duration) {
+        userPermissionCache.clock = clockAt(nanos.addAndGet(duration.toNanos()));
+    }
+
+    private static Clock clockAt(long nanos) {
+        return Clock.fixed(Instant.ofEpochMilli(1_700_000_000_000L + nanos / 1_000_000), ZoneOffset.UTC);
+    }
+
+    private List<UserRole> selectUserRoles(Collection<Integer> userIds) {
+        List<UserRole> rows = new ArrayList<>();
+        for (Integer userId : userIds) {
+            for (Integer roleId : userRoles.getOrDefault(userId, List.of())) {
+                UserRole userRole = new UserRole();
+                userRole.setUserId(userId);
+                userRole.setRoleId(roleId);
+                rows.add(userRole);
+            }
+        }
+        return rows;
+    }
+
+    private List<RolePermissionRow> selectPermissionNames(Collection<Integer> roleIds) {
+        List<RolePermissionRow> rows = new ArrayList<>();
+        for (Integer roleId : roleIds) {
+            for (String permissionName : rolePermissions.getOrDefault(roleId, List.of())) {
+                RolePermissionRow row = new RolePermissionRow();
+                row.setRoleId(roleId);
+                row.setPermissionName(permissionName);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,45 @@
+package com.daisyPig.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptCalibrationTest {
+
+    /**
+     * 测试按实测耗时外推代价：cost 每加 1 耗时翻倍，结果取最接近目标耗时的代价并限制在 4-31 之间。
+     */
+    @Test
+    void fromMeasurement() {
+        // cost 8 耗时 16ms，目标 250ms 约为 2^3.97 倍
+        BcryptCalibration calibration = BcryptCalibration.fromMeasurement(Duration.ofMillis(250), 16_000_000L);
+        assertEquals(12, calibration.getStrength());
+        assertEquals(256, calibration.getEstimatedHashTime().toMillis());
+
+        assertEquals(4, BcryptCalibration.fromMeasurement(Duration.ofNanos(1), 16_000_000L).getStrength());
+        assertEquals(31, BcryptCalibration.fromMeasurement(Duration.ofHours(1), 1L).getStrength());
+    }
+
+    /**
+     * 测试实际校准结果落在合法范围内。
+     */
+    @Test
+    void calibrate() {
+        int strength = BcryptCalibration.calibrate(Duration.ofMillis(10)).getStrength();
+        assertTrue(strength >= 4 && strength <= 31);
+    }
+
+    /**
+     * 测试从已存储哈希中解析代价，非 bcrypt 哈希返回 -1。
+     */
+    @Test
+    void strengthOf() {
+        assertEquals(10, BcryptCalibration.strengthOf("$2a$10$uvUD8VzLflTk1jrs2ByjMOeWXr38r0b.J6ht3R2C8DexKXSM9xhaa"));
+        assertEquals(12, BcryptCalibration.strengthOf("$2b$12$abc"));
+        assertEquals(-1, BcryptCalibration.strengthOf("plain-text"));
+        assertEquals(-1, BcryptCalibration.strengthOf(null));
+        assertThrows(IllegalArgumentException.class, () -> BcryptCalibration.fixed(3));
+    }
+}
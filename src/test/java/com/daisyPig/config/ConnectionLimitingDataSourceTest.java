@@ -0,0 +1,79 @@
+package com.daisyPig.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new ConnectionLimitingDataSource(target, 1, Duration.ofMillis(50));
+        dataSource.bindTo(meterRegistry);
+    }
+
+    /**
+     * 测试许可用尽时获取连接等待超时，连接关闭后许可归还；重复关闭只归还一次。
+     */
+    @Test
+    void limitsConcurrentConnections() throws SQLException {
+        Connection first = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertEquals(1.0, meterRegistry.get("rbac.jdbc.permits.available").gauge().value());
+
+        Connection second = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        second.close();
+        assertEquals(4, meterRegistry.get("rbac.jdbc.permits.wait").timer().count());
+    }
+
+    /**
+     * 测试底层连接池获取失败时许可被归还。
+     */
+    @Test
+    void releasesPermitWhenTargetFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down")).thenReturn(connection);
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertNotNull(dataSource.getConnection());
+    }
+
+    /**
+     * 测试其它方法直接转发给被包装的连接。
+     */
+    @Test
+    void delegatesOtherCalls() throws SQLException {
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        try (Connection limited = dataSource.getConnection()) {
+            assertFalse(limited.getAutoCommit());
+        }
+    }
+}
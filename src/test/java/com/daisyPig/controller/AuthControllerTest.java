@@ -1,16 +1,29 @@
 package com.daisyPig.controller;
 
+import com.daisyPig.cache.UserPermissionCache;
 import com.daisyPig.dto.ApiResponse;
 import com.daisyPig.dto.LoginRequest;
 import com.daisyPig.dto.RegisterRequest;
+import com.daisyPig.dto.SessionPrincipal;
 import com.daisyPig.entity.User;
+import com.daisyPig.service.AccessTokenService;
+import com.daisyPig.service.LoginBulkhead;
+import com.daisyPig.service.LoginThrottle;
 import com.daisyPig.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.concurrent.TimeUnit;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,12 +37,32 @@ class AuthControllerTest {
     @Mock
     private HttpSession session;
 
+    @Mock
+    private HttpServletRequest httpRequest;
+
+    @Mock
+    private LoginThrottle loginThrottle;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private UserPermissionCache userPermissionCache;
+
     @InjectMocks
     private AuthController authController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        LoginBulkhead loginBulkhead = new LoginBulkhead();
+        ReflectionTestUtils.setField(loginBulkhead, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(loginBulkhead, "threads", 1);
+        ReflectionTestUtils.setField(loginBulkhead, "queueCapacity", 4);
+        ReflectionTestUtils.invokeMethod(loginBulkhead, "init");
+        ReflectionTestUtils.setField(authController, "loginBulkhead", loginBulkhead);
+        ReflectionTestUtils.setField(authController, "loginThrottle", loginThrottle);
+        when(httpRequest.getSession()).thenReturn(session);
     }
 
     /**
@@ -47,7 +80,7 @@ class AuthControllerTest {
         when(userService.register(request)).thenReturn(expectedUser);
 
         // 执行测试
-        ApiResponse<User> response = authController.register(request);
+        ApiResponse<User> response = authController.register(request).join();
 
         // 验证结果
         assertTrue(response.isSuccess());
@@ -70,7 +103,7 @@ class AuthControllerTest {
         when(userService.register(request)).thenThrow(new RuntimeException(errorMessage));
 
         // 执行测试
-        ApiResponse<User> response = authController.register(request);
+        ApiResponse<User> response = authController.register(request).join();
 
         // 验证结果
         assertFalse(response.isSuccess());
@@ -83,24 +116,28 @@ class AuthControllerTest {
      * 模拟 UserService 的 login 方法返回一个用户对象，
      * 调用 AuthController 的 login 方法并传入模拟的 HttpSession，
      * 验证返回的 ApiResponse 的 success 字段为 true，
-     * 消息为 "登录成功"，返回的数据与模拟的用户对象一致，
-     * 并且验证 HttpSession 的 setAttribute 方法被调用，设置了当前用户。
+     * 消息为 "登录成功"，返回的数据为当前会话ID，
+     * 并且验证 HttpSession 中保存的是登录主体而不是完整的用户对象。
      */
     @Test
     void login_Success() {
         // 准备测试数据
         LoginRequest request = new LoginRequest();
         User expectedUser = new User();
+        expectedUser.setId(1);
+        SessionPrincipal principal = new SessionPrincipal(1, 5L, 1_700_000_000_000L, new long[]{0b1010L});
         when(userService.login(request)).thenReturn(expectedUser);
+        when(userPermissionCache.principalOf(1)).thenReturn(principal);
+        when(session.getId()).thenReturn("session-1");
 
         // 执行测试
-        ApiResponse<User> response = authController.login(session,request);
+        ApiResponse<String> response = authController.login(request, httpRequest).join();
 
         // 验证结果
         assertTrue(response.isSuccess());
         assertEquals("登录成功", response.getMessage());
-        assertEquals(expectedUser, response.getData());
-        verify(session).setAttribute("currentUser", expectedUser);
+        assertEquals("session-1", response.getData());
+        verify(session).setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, principal);
     }
 
     /**
@@ -119,7 +156,7 @@ class AuthControllerTest {
         when(userService.login(request)).thenThrow(new RuntimeException(errorMessage));
 
         // 执行测试
-        ApiResponse<User> response = authController.login(session,request);
+        ApiResponse<String> response = authController.login(request, httpRequest).join();
 
         // 验证结果
         assertFalse(response.isSuccess());
@@ -128,6 +165,110 @@ class AuthControllerTest {
         verify(session, never()).setAttribute(eq("currentUser"), any());
     }
 
+    /**
+     * 测试登录专用线程池已满的情况。
+     * 调用 AuthController 的 handleRejected 方法，
+     * 验证返回的 ApiResponse 的 success 字段为 false，消息为 "服务繁忙，请稍后重试"，
+     * 并且响应头中带有 Retry-After。
+     */
+    @Test
+    void login_Rejected() {
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+        // 执行测试
+        ApiResponse<Void> response = authController.handleRejected(httpResponse);
+
+        // 验证结果
+        assertFalse(response.isSuccess());
+        assertEquals("服务繁忙，请稍后重试", response.getMessage());
+        assertEquals("1", httpResponse.getHeader("Retry-After"));
+    }
+
+    /**
+     * 测试令牌模式下登录成功的情况。
+     * 验证返回的数据为 AccessTokenService 签发的令牌，并且没有创建会话。
+     */
+    @Test
+    void login_TokenMode() {
+        // 准备测试数据
+        LoginRequest request = new LoginRequest();
+        User expectedUser = new User();
+        expectedUser.setId(7);
+        when(userService.login(request)).thenReturn(expectedUser);
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.issue(7)).thenReturn("token-7");
+
+        // 执行测试
+        ApiResponse<String> response = authController.login(request, httpRequest).join();
+
+        // 验证结果
+        assertTrue(response.isSuccess());
+        assertEquals("token-7", response.getData());
+        verify(httpRequest, never()).getSession();
+    }
+
+    /**
+     * 测试登录尝试过于频繁的情况。
+     * 模拟 LoginThrottle 拒绝本次尝试，验证 AuthController 不会调用 UserService 的 login 方法，
+     * 并且 handleThrottled 返回的响应头中带有 Retry-After。
+     */
+    @Test
+    void login_Throttled() {
+        // 准备测试数据
+        LoginRequest request = new LoginRequest();
+        request.setUsername("admin");
+        MockHttpServletRequest throttledRequest = new MockHttpServletRequest();
+        throttledRequest.setRemoteAddr("10.0.0.1");
+        LoginThrottle.ThrottledException throttled = new LoginThrottle.ThrottledException(TimeUnit.SECONDS.toNanos(12));
+        doThrow(throttled).when(loginThrottle).acquire("admin", "10.0.0.1");
+
+        // 执行测试
+        assertThrows(LoginThrottle.ThrottledException.class, () -> authController.login(request, throttledRequest));
+        MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+        ApiResponse<Void> response = authController.handleThrottled(throttled, httpResponse);
+
+        // 验证结果
+        verify(userService, never()).login(any());
+        assertFalse(response.isSuccess());
+        assertEquals("登录尝试过于频繁，请稍后重试", response.getMessage());
+        assertEquals("12", httpResponse.getHeader("Retry-After"));
+    }
+
+    /**
+     * 测试部署在负载均衡之后（server.forward-headers-strategy: framework）时，
+     * 按 X-Forwarded-For 中的客户端地址分别限流：一个客户端超限不影响经由同一代理的其它客户端。
+     */
+    @Test
+    void login_ThrottlesForwardedClientsSeparately() throws Exception {
+        LoginThrottle realThrottle = new LoginThrottle();
+        ReflectionTestUtils.setField(realThrottle, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(realThrottle, "usernameBurst", 100);
+        ReflectionTestUtils.setField(realThrottle, "usernamePerMinute", 100);
+        ReflectionTestUtils.setField(realThrottle, "ipBurst", 2);
+        ReflectionTestUtils.setField(realThrottle, "ipPerMinute", 1);
+        ReflectionTestUtils.setField(realThrottle, "maxKeys", 1000L);
+        ReflectionTestUtils.invokeMethod(realThrottle, "init");
+        ReflectionTestUtils.setField(authController, "loginThrottle", realThrottle);
+
+        loginVia("203.0.113.1", "user1");
+        loginVia("203.0.113.1", "user2");
+        assertThrows(LoginThrottle.ThrottledException.class, () -> loginVia("203.0.113.1", "user3"));
+
+        // 经由同一负载均衡的另一个客户端
+        loginVia("203.0.113.2", "user4");
+        loginVia("203.0.113.2", "user5");
+    }
+
+    private void loginVia(String clientAddress, String username) throws Exception {
+        MockHttpServletRequest forwarded = new MockHttpServletRequest("POST", "/api/auth/login");
+        forwarded.setRemoteAddr("10.0.0.254");
+        forwarded.addHeader("X-Forwarded-For", clientAddress);
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        new ForwardedHeaderFilter().doFilter(forwarded, new MockHttpServletResponse(),
+                (req, res) -> authController.login(request, (HttpServletRequest) req));
+    }
+
     /**
      * 测试用户退出登录成功的情况。
      * 调用 AuthController 的 logout 方法并传入模拟的 HttpSession，
@@ -149,7 +290,7 @@ class AuthControllerTest {
 
     /**
      * 测试获取已登录用户信息的情况。
-     * 模拟 HttpSession 的 getAttribute 方法返回一个用户对象，
+     * 模拟 HttpSession 的 getAttribute 方法返回一个登录主体，
      * 模拟 UserService 的 getUserWithRoles 方法返回一个完整的用户对象，
      * 调用 AuthController 的 getCurrentUser 方法并传入模拟的 HttpSession，
      * 验证返回的 ApiResponse 的 success 字段为 true，
@@ -158,10 +299,8 @@ class AuthControllerTest {
     @Test
     void getCurrentUser_WhenLoggedIn() {
         // 准备测试数据
-        User sessionUser = new User();
-        sessionUser.setId(1);
         User fullUser = new User();
-        when(session.getAttribute("currentUser")).thenReturn(sessionUser);
+        when(session.getAttribute("currentUser")).thenReturn(new SessionPrincipal(1, 5L, 0L, null));
         when(userService.getUserWithRoles(1)).thenReturn(fullUser);
 
         // 执行测试
@@ -0,0 +1,78 @@
+package com.daisyPig.controller;
+
+import com.daisyPig.service.AuthorizationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthzControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private AuthorizationService authorizationService;
+
+    @InjectMocks
+    private AuthzController authzController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(authzController, "maxBatchSize", 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(authzController).build();
+    }
+
+    /**
+     * 测试批量权限校验接口。
+     * 模拟 AuthorizationService 的 check 方法返回两项结果，
+     * 向 /api/authz/check 发送 POST 请求，
+     * 验证结果按请求顺序返回。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void check() throws Exception {
+        when(authorizationService.check(anyList())).thenReturn(Arrays.asList(true, false));
+
+        mockMvc.perform(post("/api/authz/check")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"checks\":[{\"userId\":1,\"permission\":\"user:view\"},{\"userId\":2,\"permission\":\"user:view\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0]").value(true))
+                .andExpect(jsonPath("$.data[1]").value(false));
+    }
+
+    /**
+     * 测试校验项超过上限时返回错误，并且不会执行校验。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void checkTooLarge() throws Exception {
+        mockMvc.perform(post("/api/authz/check")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"checks\":[{\"userId\":1,\"permission\":\"a\"},{\"userId\":2,\"permission\":\"b\"},{\"userId\":3,\"permission\":\"c\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("校验项数量不能超过 2"));
+
+        verify(authorizationService, never()).check(anyList());
+    }
+}
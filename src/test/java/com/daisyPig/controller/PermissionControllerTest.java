@@ -1,23 +1,33 @@
 package com.daisyPig.controller;
 
+import com.daisyPig.cache.CatalogResponseCache;
 import com.daisyPig.dto.ApiResponse;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.entity.Permission;
+import com.daisyPig.entity.User;
 import com.daisyPig.service.PermissionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -36,39 +46,47 @@ class PermissionControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        CatalogResponseCache catalogResponseCache = new CatalogResponseCache();
+        ReflectionTestUtils.setField(catalogResponseCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(catalogResponseCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalogResponseCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(catalogResponseCache, "expireAfterWrite", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(catalogResponseCache, "init");
+        ReflectionTestUtils.setField(permissionController, "catalogResponseCache", catalogResponseCache);
         mockMvc = MockMvcBuilders.standaloneSetup(permissionController).build();
     }
 
     /**
-     * 测试获取所有权限的接口。
-     * 模拟 PermissionService 的 getAllPermissions 方法返回包含两个权限的列表，
-     * 然后向 /api/permissions 发送 GET 请求，
+     * 测试分页获取权限的接口。
+     * 模拟 PermissionService 的 getPermissions 方法返回包含两个权限的一页数据，
+     * 然后向 /api/permissions?after=10&limit=2 发送 GET 请求，
      * 验证响应状态码为 200，响应中的 success 字段为 true，
-     * 并且返回的权限数据与模拟数据一致。
+     * 并且返回的权限数据和下一页游标与模拟数据一致。
      *
      * @throws Exception 当请求处理过程中出现异常时抛出
      */
     @Test
-    void getAllPermissions() throws Exception {
+    void getPermissions() throws Exception {
         Permission permission1 = new Permission();
-        permission1.setId(1);
+        permission1.setId(11);
         permission1.setPermissionName("权限1");
 
         Permission permission2 = new Permission();
-        permission2.setId(2);
+        permission2.setId(12);
         permission2.setPermissionName("权限2");
 
         List<Permission> permissions = Arrays.asList(permission1, permission2);
 
-        when(permissionService.getAllPermissions()).thenReturn(permissions);
+        when(permissionService.getPermissions(10, 2, null)).thenReturn(new CursorPage<>(permissions, 12));
 
-        mockMvc.perform(get("/api/permissions"))
+        mockMvc.perform(get("/api/permissions").param("after", "10").param("limit", "2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data[0].id").value(1))
-                .andExpect(jsonPath("$.data[0].permissionName").value("权限1"))
-                .andExpect(jsonPath("$.data[1].id").value(2))
-                .andExpect(jsonPath("$.data[1].permissionName").value("权限2"));
+                .andExpect(jsonPath("$.data.items[0].id").value(11))
+                .andExpect(jsonPath("$.data.items[0].permissionName").value("权限1"))
+                .andExpect(jsonPath("$.data.items[1].id").value(12))
+                .andExpect(jsonPath("$.data.items[1].permissionName").value("权限2"))
+                .andExpect(jsonPath("$.data.nextAfter").value(12));
     }
 
     /**
@@ -114,6 +132,49 @@ class PermissionControllerTest {
                 .andExpect(jsonPath("$.message").value("权限不存在"));
     }
 
+    /**
+     * 测试分页获取拥有指定权限的用户的接口。
+     * 模拟权限 5 存在，PermissionService 的 getUsersWithPermission 方法返回包含一个用户的一页数据，
+     * 向 /api/permissions/5/users?after=100&limit=1 发送 GET 请求，
+     * 验证返回的用户数据和下一页游标与模拟数据一致。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void getUsersWithPermission() throws Exception {
+        Permission permission = new Permission();
+        permission.setId(5);
+        User user = new User();
+        user.setId(101);
+        user.setUsername("alice");
+
+        when(permissionService.getPermissionById(5)).thenReturn(permission);
+        when(permissionService.getUsersWithPermission(5, 100, 1)).thenReturn(new CursorPage<>(List.of(user), 101));
+
+        mockMvc.perform(get("/api/permissions/5/users").param("after", "100").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.items[0].id").value(101))
+                .andExpect(jsonPath("$.data.items[0].username").value("alice"))
+                .andExpect(jsonPath("$.data.nextAfter").value(101));
+    }
+
+    /**
+     * 测试权限不存在时获取用户的接口返回 "权限不存在"，不查询索引。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void getUsersWithPermissionNotFound() throws Exception {
+        when(permissionService.getPermissionById(999)).thenReturn(null);
+
+        mockMvc.perform(get("/api/permissions/999/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("权限不存在"));
+        verify(permissionService, never()).getUsersWithPermission(anyInt(), any(), anyInt());
+    }
+
     /**
      * 测试创建权限的接口。
      * 模拟 PermissionService 的 createPermission 方法不进行实际操作（doNothing），
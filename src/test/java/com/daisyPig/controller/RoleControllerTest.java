@@ -1,24 +1,36 @@
 package com.daisyPig.controller;
 
+import com.daisyPig.cache.CatalogResponseCache;
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
 import com.daisyPig.entity.Role;
+import com.daisyPig.service.ResourceNotFoundException;
 import com.daisyPig.service.RoleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,20 +47,28 @@ class RoleControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(roleController, "maxBulkRows", 100);
+        CatalogResponseCache catalogResponseCache = new CatalogResponseCache();
+        ReflectionTestUtils.setField(catalogResponseCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(catalogResponseCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalogResponseCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(catalogResponseCache, "expireAfterWrite", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(catalogResponseCache, "init");
+        ReflectionTestUtils.setField(roleController, "catalogResponseCache", catalogResponseCache);
         mockMvc = MockMvcBuilders.standaloneSetup(roleController).build();
     }
 
     /**
-     * 测试获取所有角色的接口。
-     * 该方法会模拟 RoleService 的 getAllRoles 方法返回两个角色的列表，
+     * 测试分页获取角色的接口。
+     * 该方法会模拟 RoleService 的 getRoles 方法返回包含两个角色的最后一页，
      * 然后发起 GET 请求到 /api/roles 接口，
      * 并验证响应状态码为 200，响应中的 success 字段为 true，
-     * 以及返回的角色数据是否与模拟数据一致。
+     * 返回的角色数据与模拟数据一致，且没有下一页游标。
      *
      * @throws Exception 当请求处理过程中出现异常时抛出
      */
     @Test
-    void getAllRoles() throws Exception {
+    void getRoles() throws Exception {
         Role role1 = new Role();
         role1.setId(1);
         role1.setRoleName("角色1");
@@ -59,15 +79,16 @@ class RoleControllerTest {
 
         List<Role> roles = Arrays.asList(role1, role2);
 
-        when(roleService.getAllRoles()).thenReturn(roles);
+        when(roleService.getRoles(null, 50, null)).thenReturn(new CursorPage<>(roles, null));
 
         mockMvc.perform(get("/api/roles"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data[0].id").value(1))
-                .andExpect(jsonPath("$.data[0].roleName").value("角色1"))
-                .andExpect(jsonPath("$.data[1].id").value(2))
-                .andExpect(jsonPath("$.data[1].roleName").value("角色2"));
+                .andExpect(jsonPath("$.data.items[0].id").value(1))
+                .andExpect(jsonPath("$.data.items[0].roleName").value("角色1"))
+                .andExpect(jsonPath("$.data.items[1].id").value(2))
+                .andExpect(jsonPath("$.data.items[1].roleName").value("角色2"))
+                .andExpect(jsonPath("$.data.nextAfter").doesNotExist());
     }
 
     /**
@@ -94,6 +115,38 @@ class RoleControllerTest {
                 .andExpect(jsonPath("$.data.roleName").value("测试角色"));
     }
 
+    /**
+     * 测试角色详情响应带有 ETag，携带该 ETag 再次请求时返回 304 且不再查询；角色变更后重新查询。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void getRoleWithPermissions_NotModified() throws Exception {
+        Role role = new Role();
+        role.setId(1);
+        role.setRoleName("测试角色");
+        when(roleService.getRoleWithPermissions(1)).thenReturn(role);
+
+        String etag = mockMvc.perform(get("/api/roles/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/roles/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(roleService, times(1)).getRoleWithPermissions(1);
+
+        CatalogResponseCache catalogResponseCache = (CatalogResponseCache)
+                ReflectionTestUtils.getField(roleController, "catalogResponseCache");
+        catalogResponseCache.invalidate();
+        role.setRoleName("新名称");
+        mockMvc.perform(get("/api/roles/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.roleName").value("新名称"));
+        verify(roleService, times(2)).getRoleWithPermissions(1);
+    }
+
     /**
      * 测试获取不存在的角色及其权限的接口。
      * 该方法会模拟 RoleService 的 getRoleWithPermissions 方法返回 null，
@@ -183,7 +236,7 @@ class RoleControllerTest {
 
     /**
      * 测试为角色添加权限的接口。
-     * 该方法会模拟 RoleService 的 addPermissionToRole 方法不做任何操作，
+     * 该方法会模拟 RoleService 的 addPermissionToRole 方法返回 true（新增了关联），
      * 然后发起 POST 请求到 /api/roles/1/permissions/2 接口，
      * 并验证响应状态码为 200，响应中的 success 字段为 true，
      * 以及返回的消息是否为 "权限添加成功"。
@@ -192,17 +245,35 @@ class RoleControllerTest {
      */
     @Test
     void addPermissionToRole() throws Exception {
-        doNothing().when(roleService).addPermissionToRole(1, 2);
+        when(roleService.addPermissionToRole(1, 2)).thenReturn(true);
 
         mockMvc.perform(post("/api/roles/1/permissions/2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("权限添加成功"));
+                .andExpect(jsonPath("$.message").value("权限添加成功"))
+                .andExpect(jsonPath("$.data").value(true));
+    }
+
+    /**
+     * 测试为角色添加不存在的权限的接口。
+     * 该方法会模拟 RoleService 的 addPermissionToRole 方法抛出 ResourceNotFoundException，
+     * 并验证响应状态码为 404，success 字段为 false，以及返回的消息为不存在的原因。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void addPermissionToRole_NotFound() throws Exception {
+        when(roleService.addPermissionToRole(1, 99)).thenThrow(new ResourceNotFoundException("权限不存在: 99"));
+
+        mockMvc.perform(post("/api/roles/1/permissions/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("权限不存在: 99"));
     }
 
     /**
      * 测试从角色中移除权限的接口。
-     * 该方法会模拟 RoleService 的 removePermissionFromRole 方法不做任何操作，
+     * 该方法会模拟 RoleService 的 removePermissionFromRole 方法返回 true（删除了关联），
      * 然后发起 DELETE 请求到 /api/roles/1/permissions/2 接口，
      * 并验证响应状态码为 200，响应中的 success 字段为 true，
      * 以及返回的消息是否为 "权限移除成功"。
@@ -211,11 +282,34 @@ class RoleControllerTest {
      */
     @Test
     void removePermissionFromRole() throws Exception {
-        doNothing().when(roleService).removePermissionFromRole(1, 2);
+        when(roleService.removePermissionFromRole(1, 2)).thenReturn(true);
 
         mockMvc.perform(delete("/api/roles/1/permissions/2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("权限移除成功"));
+                .andExpect(jsonPath("$.message").value("权限移除成功"))
+                .andExpect(jsonPath("$.data").value(true));
+    }
+
+    /**
+     * 测试为角色批量添加权限的接口。
+     * 该方法会模拟 RoleService 的 addPermissionsToRole 方法返回新增 2 条、跳过 1 条，
+     * 然后发起 POST 请求到 /api/roles/1/permissions 接口，
+     * 并验证响应中的 success 字段为 true，以及返回的新增与跳过数量。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void addPermissionsToRole() throws Exception {
+        when(roleService.addPermissionsToRole(1, Arrays.asList(2, 3, 4))).thenReturn(new BulkResult(2, 1));
+
+        mockMvc.perform(post("/api/roles/1/permissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2,3,4]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("权限批量添加成功"))
+                .andExpect(jsonPath("$.data.inserted").value(2))
+                .andExpect(jsonPath("$.data.skipped").value(1));
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,11 @@
 package com.daisyPig.controller;
 
+import com.daisyPig.dto.BulkResult;
+import com.daisyPig.dto.CursorPage;
+import com.daisyPig.dto.ImportProgress;
 import com.daisyPig.entity.User;
+import com.daisyPig.service.ResourceNotFoundException;
+import com.daisyPig.service.UserImportService;
 import com.daisyPig.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,17 +13,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
 
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -29,26 +38,30 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserImportService userImportService;
+
     @InjectMocks
     private UserController userController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userController, "maxBulkRows", 100);
         mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
     }
 
     /**
-     * 测试获取所有用户的接口。
-     * 模拟 UserService 的 getAllUsers 方法返回包含两个用户的列表，
-     * 然后向 /api/users 发送 GET 请求，
+     * 测试分页获取用户的接口。
+     * 模拟 UserService 的 getUsers 方法返回包含两个用户的一页数据及下一页游标，
+     * 然后向 /api/users?after=0&limit=2&usernamePrefix=user 发送 GET 请求，
      * 验证响应状态码为 200，响应中的 success 字段为 true，
-     * 并且返回的用户数据与模拟数据一致。
+     * 并且返回的用户数据和下一页游标与模拟数据一致。
      *
      * @throws Exception 当请求处理过程中出现异常时抛出
      */
     @Test
-    void getAllUsers() throws Exception {
+    void getUsers() throws Exception {
         User user1 = new User();
         user1.setId(1);
         user1.setUsername("user1");
@@ -59,15 +72,16 @@ class UserControllerTest {
 
         List<User> users = Arrays.asList(user1, user2);
 
-        when(userService.getAllUsers()).thenReturn(users);
+        when(userService.getUsers(0, 2, "user", null, null)).thenReturn(new CursorPage<>(users, 2));
 
-        mockMvc.perform(get("/api/users"))
+        mockMvc.perform(get("/api/users").param("after", "0").param("limit", "2").param("usernamePrefix", "user"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data[0].id").value(1))
-                .andExpect(jsonPath("$.data[0].username").value("user1"))
-                .andExpect(jsonPath("$.data[1].id").value(2))
-                .andExpect(jsonPath("$.data[1].username").value("user2"));
+                .andExpect(jsonPath("$.data.items[0].id").value(1))
+                .andExpect(jsonPath("$.data.items[0].username").value("user1"))
+                .andExpect(jsonPath("$.data.items[1].id").value(2))
+                .andExpect(jsonPath("$.data.items[1].username").value("user2"))
+                .andExpect(jsonPath("$.data.nextAfter").value(2));
     }
 
     /**
@@ -159,7 +173,7 @@ class UserControllerTest {
 
     /**
      * 测试为用户分配角色的接口。
-     * 模拟 UserService 的 assignRoleToUser 方法不进行实际操作（doNothing），
+     * 模拟 UserService 的 assignRoleToUser 方法返回 true（新增了关联），
      * 向 /api/users/1/roles/2 发送 POST 请求，
      * 验证响应状态码为 200，响应中的 success 字段为 true，
      * 且返回的消息为 "角色分配成功"。
@@ -168,17 +182,35 @@ class UserControllerTest {
      */
     @Test
     void assignRoleToUser() throws Exception {
-        doNothing().when(userService).assignRoleToUser(1, 2);
+        when(userService.assignRoleToUser(1, 2)).thenReturn(true);
 
         mockMvc.perform(post("/api/users/1/roles/2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("角色分配成功"));
+                .andExpect(jsonPath("$.message").value("角色分配成功"))
+                .andExpect(jsonPath("$.data").value(true));
+    }
+
+    /**
+     * 测试为不存在的用户分配角色的接口。
+     * 模拟 UserService 的 assignRoleToUser 方法抛出 ResourceNotFoundException，
+     * 验证响应状态码为 404，success 字段为 false，并返回不存在的原因。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void assignRoleToUser_NotFound() throws Exception {
+        when(userService.assignRoleToUser(99, 2)).thenThrow(new ResourceNotFoundException("用户不存在: 99"));
+
+        mockMvc.perform(post("/api/users/99/roles/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("用户不存在: 99"));
     }
 
     /**
      * 测试从用户移除角色的接口。
-     * 模拟 UserService 的 removeRoleFromUser 方法不进行实际操作（doNothing），
+     * 模拟 UserService 的 removeRoleFromUser 方法返回 true（删除了关联），
      * 向 /api/users/1/roles/2 发送 DELETE 请求，
      * 验证响应状态码为 200，响应中的 success 字段为 true，
      * 且返回的消息为 "角色移除成功"。
@@ -187,11 +219,177 @@ class UserControllerTest {
      */
     @Test
     void removeRoleFromUser() throws Exception {
-        doNothing().when(userService).removeRoleFromUser(1, 2);
+        when(userService.removeRoleFromUser(1, 2)).thenReturn(true);
 
         mockMvc.perform(delete("/api/users/1/roles/2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("角色移除成功"));
+                .andExpect(jsonPath("$.message").value("角色移除成功"))
+                .andExpect(jsonPath("$.data").value(true));
+    }
+
+    /**
+     * 测试批量为用户分配角色的接口。
+     * 模拟 UserService 的 assignRolesToUsers 方法返回新增 3 条、跳过 1 条，
+     * 向 /api/users/roles 发送 POST 请求，
+     * 验证响应中的 success 字段为 true，并且返回了新增与跳过的数量。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void assignRolesToUsers() throws Exception {
+        when(userService.assignRolesToUsers(Arrays.asList(1, 2), Arrays.asList(3, 4))).thenReturn(new BulkResult(3, 1));
+
+        mockMvc.perform(post("/api/users/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[1,2],\"roleIds\":[3,4]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("角色批量分配成功"))
+                .andExpect(jsonPath("$.data.inserted").value(3))
+                .andExpect(jsonPath("$.data.skipped").value(1));
+    }
+
+    /**
+     * 测试批量分配角色时包含不存在的用户或角色ID，验证返回 404 并列出不存在的ID。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void assignRolesToUsersUnknownIds() throws Exception {
+        when(userService.assignRolesToUsers(Arrays.asList(1, 99), Arrays.asList(3)))
+                .thenThrow(new ResourceNotFoundException("用户不存在: [99]"));
+
+        mockMvc.perform(post("/api/users/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[1,99],\"roleIds\":[3]}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("用户不存在: [99]"));
+    }
+
+    /**
+     * 测试批量分配角色时参数为空的情况，验证返回错误消息 "用户ID和角色ID不能为空"。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void assignRolesToUsersEmpty() throws Exception {
+        mockMvc.perform(post("/api/users/roles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[],\"roleIds\":[3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("用户ID和角色ID不能为空"));
+    }
+
+    /**
+     * 测试导出用户的接口。
+     * 向 /api/users/export 发送 GET 请求，
+     * 验证响应类型为 application/x-ndjson，并且调用了 UserService 的 exportUsers 方法写出响应流。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void exportUsers() throws Exception {
+        when(userService.exportUsers(any())).thenReturn(0L);
+
+        mockMvc.perform(get("/api/users/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"));
+
+        verify(userService).exportUsers(any());
+    }
+
+    /**
+     * 测试批量导入用户的接口。
+     * 模拟 UserImportService 的 startImport 方法返回运行中的任务进度，
+     * 然后以 text/csv 格式向 /api/users/import 发送 POST 请求，
+     * 验证返回的任务ID和状态，并且按 CSV 格式启动了导入任务。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void importUsers() throws Exception {
+        ImportProgress progress = new ImportProgress("job-1", "RUNNING", 0, 0, 0, 0, 0, 0, 0, 0, null);
+        when(userImportService.startImport(any(), eq(UserImportService.FORMAT_CSV))).thenReturn(progress);
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("username,password,email\nuser1,pass1,user1@example.com\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.jobId").value("job-1"))
+                .andExpect(jsonPath("$.data.state").value("RUNNING"));
+
+        verify(userImportService).startImport(any(), eq(UserImportService.FORMAT_CSV));
+    }
+
+    /**
+     * 测试已有导入任务在运行时再次导入的情况，验证返回错误消息 "已有导入任务正在运行"。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void importUsersWhileRunning() throws Exception {
+        when(userImportService.startImport(any(), eq(UserImportService.FORMAT_NDJSON)))
+                .thenThrow(new RuntimeException("已有导入任务正在运行"));
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"username\":\"user1\",\"password\":\"pass1\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("已有导入任务正在运行"));
+    }
+
+    /**
+     * 测试导入内容超过大小上限时返回 413，超过记录数上限时返回 400。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void importUsersOverLimit() throws Exception {
+        when(userImportService.startImport(any(), eq(UserImportService.FORMAT_CSV)))
+                .thenThrow(new UserImportService.TooLargeException(DataSize.ofMegabytes(64)));
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("text/csv")
+                        .content("username,password,email\nuser1,pass1,user1@example.com\n"))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("导入文件不能超过 64MB"));
+
+        when(userImportService.startImport(any(), eq(UserImportService.FORMAT_NDJSON)))
+                .thenThrow(new UserImportService.TooManyRowsException(1000));
+
+        mockMvc.perform(post("/api/users/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"username\":\"user1\",\"password\":\"pass1\"}\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("单次导入不能超过 1000 条记录"));
+    }
+
+    /**
+     * 测试查询导入进度的接口。
+     * 模拟 UserImportService 的 getProgress 方法返回已完成的任务进度，
+     * 验证返回的插入数、跳过数与模拟数据一致；任务不存在时返回错误消息 "导入任务不存在"。
+     *
+     * @throws Exception 当请求处理过程中出现异常时抛出
+     */
+    @Test
+    void getImportProgress() throws Exception {
+        ImportProgress progress = new ImportProgress("job-1", "COMPLETED", 3, 2, 1, 2, 1, 0, 1500, 2.0, null);
+        when(userImportService.getProgress("job-1")).thenReturn(progress);
+
+        mockMvc.perform(get("/api/users/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.inserted").value(2))
+                .andExpect(jsonPath("$.data.skipped").value(1));
+
+        mockMvc.perform(get("/api/users/import/job-2"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("导入任务不存在"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package com.daisyPig.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionPrincipalTest {
+
+    /**
+     * 测试登录主体序列化后可以完整还原，并且序列化结果足够紧凑。
+     */
+    @Test
+    void serializationRoundTrip() throws Exception {
+        SessionPrincipal principal = new SessionPrincipal(42, 7L, 1_700_000_000_000L, new long[]{0b1011L, 1L << 63});
+
+        byte[] bytes = serialize(principal);
+        SessionPrincipal restored = (SessionPrincipal) deserialize(bytes);
+
+        assertEquals(42, restored.getUserId());
+        assertEquals(7L, restored.getModelVersion());
+        assertEquals(1_700_000_000_000L, restored.getIssuedAt());
+        assertArrayEquals(new long[]{0b1011L, 1L << 63}, restored.getPermissions());
+        assertTrue(bytes.length < 100, "serialized size: " + bytes.length);
+    }
+
+    /**
+     * 测试没有权限位图的登录主体序列化后位图仍为 null。
+     */
+    @Test
+    void serializationWithoutPermissions() throws Exception {
+        SessionPrincipal restored = (SessionPrincipal) deserialize(serialize(new SessionPrincipal(1, 0L, 0L, null)));
+
+        assertEquals(1, restored.getUserId());
+        assertNull(restored.getPermissions());
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.daisyPig.interceptor;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MapperMetricsInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MapperMetricsInterceptor interceptor;
+    private Executor executor;
+    private Method update;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new MapperMetricsInterceptor();
+        ReflectionTestUtils.setField(interceptor, "meterRegistry", meterRegistry);
+        executor = mock(Executor.class);
+        update = Executor.class.getMethod("update", MappedStatement.class, Object.class);
+    }
+
+    private static MappedStatement statement(String id) {
+        return new MappedStatement.Builder(new Configuration(), id, mock(SqlSource.class), SqlCommandType.UPDATE).build();
+    }
+
+    /**
+     * 测试按 Mapper 简单类名和方法名打标签记录耗时。
+     */
+    @Test
+    void intercept_RecordsPerStatement() throws Throwable {
+        MappedStatement statement = statement("com.daisyPig.mapper.UserRoleMapper.deleteByUserId");
+        when(executor.update(statement, 1)).thenReturn(1);
+
+        assertEquals(1, interceptor.intercept(new Invocation(executor, update, new Object[]{statement, 1})));
+        interceptor.intercept(new Invocation(executor, update, new Object[]{statement, 1}));
+
+        Timer timer = meterRegistry.get("rbac.mapper")
+                .tag("mapper", "UserRoleMapper").tag("statement", "deleteByUserId").timer();
+        assertEquals(2, timer.count());
+    }
+
+    /**
+     * 测试语句执行失败时同样记录耗时，并原样抛出异常。
+     */
+    @Test
+    void intercept_RecordsOnFailure() throws Throwable {
+        MappedStatement statement = statement("com.daisyPig.mapper.UserMapper.insert");
+        when(executor.update(statement, null)).thenThrow(new SQLException("duplicate"));
+
+        // Invocation 通过反射调用，异常被包装为 InvocationTargetException
+        assertThrows(Exception.class,
+                () -> interceptor.intercept(new Invocation(executor, update, new Object[]{statement, null})));
+
+        assertEquals(1, meterRegistry.get("rbac.mapper")
+                .tag("mapper", "UserMapper").tag("statement", "insert").timer().count());
+    }
+}
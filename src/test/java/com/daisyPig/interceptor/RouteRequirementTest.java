@@ -0,0 +1,69 @@
+package com.daisyPig.interceptor;
+
+import com.daisyPig.cache.CompiledPermissions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteRequirementTest {
+
+    private static final List<String> NAMES = List.of("role:view", "role:edit", "user:view", "user:edit");
+
+    private static CompiledPermissions permissions(String... names) {
+        BitSet bits = new BitSet();
+        for (String name : names) {
+            bits.set(NAMES.indexOf(name));
+        }
+        return CompiledPermissions.of(new int[]{1}, bits);
+    }
+
+    private static RouteRequirement requirement(String[] allOf, String[] anyOf) {
+        return RouteRequirement.compile(allOf, anyOf, NAMES::indexOf);
+    }
+
+    /**
+     * 测试 allOf 要求必须同时具备全部权限。
+     */
+    @Test
+    void allOf() {
+        RouteRequirement requirement = requirement(new String[]{"role:view", "user:edit"}, new String[0]);
+
+        assertTrue(requirement.isSatisfiedBy(permissions("role:view", "user:edit", "user:view")));
+        assertFalse(requirement.isSatisfiedBy(permissions("role:view")));
+        assertFalse(requirement.isSatisfiedBy(CompiledPermissions.EMPTY));
+    }
+
+    /**
+     * 测试 anyOf 要求至少具备其中一个权限。
+     */
+    @Test
+    void anyOf() {
+        RouteRequirement requirement = requirement(new String[0], new String[]{"role:edit", "user:edit"});
+
+        assertTrue(requirement.isSatisfiedBy(permissions("user:edit")));
+        assertFalse(requirement.isSatisfiedBy(permissions("role:view", "user:view")));
+    }
+
+    /**
+     * 测试 allOf 与 anyOf 同时存在时两者都必须满足。
+     */
+    @Test
+    void allOfAndAnyOf() {
+        RouteRequirement requirement = requirement(new String[]{"role:view"}, new String[]{"role:edit", "user:edit"});
+
+        assertTrue(requirement.isSatisfiedBy(permissions("role:view", "role:edit")));
+        assertFalse(requirement.isSatisfiedBy(permissions("role:edit")));
+        assertFalse(requirement.isSatisfiedBy(permissions("role:view")));
+    }
+
+    /**
+     * 测试没有声明任何权限时不需要校验。
+     */
+    @Test
+    void none() {
+        assertFalse(requirement(new String[0], new String[0]).isRequired());
+    }
+}
@@ -0,0 +1,105 @@
+package com.daisyPig.interceptor;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SqlLoggingInterceptorTest {
+
+    private SqlLoggingInterceptor interceptor;
+    private MappedStatement statement;
+    private Logger logger;
+    private ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new SqlLoggingInterceptor();
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "slowThreshold", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(interceptor, "sampleRate", 0.0);
+        ReflectionTestUtils.setField(interceptor, "window", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(interceptor, "maxSqlLength", 1000);
+        interceptor.init();
+
+        SqlSource sqlSource = mock(SqlSource.class);
+        when(sqlSource.getBoundSql(any())).thenAnswer(invocation -> new BoundSql(new Configuration(),
+                "SELECT *\n  FROM user_role\n WHERE user_id = ?", List.of(), invocation.getArgument(0)));
+        statement = new MappedStatement.Builder(new Configuration(), "com.daisyPig.mapper.UserRoleMapper.selectByUserId",
+                sqlSource, SqlCommandType.SELECT).build();
+
+        logger = (Logger) LoggerFactory.getLogger("com.daisyPig.sql");
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    /**
+     * 测试慢语句输出一行结构化记录，SQL 中的换行被合并。
+     */
+    @Test
+    void record_LogsSlowStatementOnOneLine() {
+        interceptor.record(statement, new Object[]{statement, 1}, List.of(1, 2), null,
+                TimeUnit.MILLISECONDS.toNanos(150), 0);
+
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertTrue(message.startsWith("event=sql reason=slow statement=com.daisyPig.mapper.UserRoleMapper.selectByUserId"));
+        assertTrue(message.contains("rows=2"));
+        assertTrue(message.contains("sql=\"SELECT * FROM user_role WHERE user_id = ?\""));
+        assertFalse(message.contains("\n"));
+    }
+
+    /**
+     * 测试抽样比例为 0 时快语句不输出，失败的语句仍然输出。
+     */
+    @Test
+    void record_SkipsFastStatementsUnlessFailed() {
+        interceptor.record(statement, new Object[]{statement, 1}, List.of(), null, 1000, 0);
+        assertTrue(appender.list.isEmpty());
+
+        interceptor.record(statement, new Object[]{statement, 1}, null, new IllegalStateException(), 1000, 0);
+        assertEquals(1, appender.list.size());
+        assertTrue(appender.list.get(0).getFormattedMessage().contains("reason=error"));
+    }
+
+    /**
+     * 测试进入下一个窗口时输出上一个窗口每条语句的次数和总耗时。
+     */
+    @Test
+    void record_FlushesWindowStats() {
+        long window = TimeUnit.MINUTES.toNanos(1);
+        interceptor.record(statement, new Object[]{statement, 1}, List.of(), null, 1_000_000, window);
+        interceptor.record(statement, new Object[]{statement, 1}, List.of(), null, 3_000_000, window + 1);
+        assertTrue(appender.list.isEmpty());
+
+        interceptor.record(statement, new Object[]{statement, 1}, List.of(), null, 1_000_000, 2 * window);
+
+        assertEquals(1, appender.list.size());
+        String message = appender.list.get(0).getFormattedMessage();
+        assertTrue(message.startsWith("event=sql-window"));
+        assertTrue(message.contains("count=2"));
+        assertTrue(message.contains("totalMs=4.000"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.daisyPig.service;
+
+import com.daisyPig.cache.CompiledPermissions;
+import com.daisyPig.cache.UserPermissionCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccessTokenServiceTest {
+
+    @Mock
+    private UserPermissionCache userPermissionCache;
+
+    @InjectMocks
+    private AccessTokenService accessTokenService;
+
+    private final CompiledPermissions permissions = CompiledPermissions.of(new int[]{1}, bits(3, 70));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(accessTokenService, "enabled", true);
+        ReflectionTestUtils.setField(accessTokenService, "secret", Base64.getEncoder().encodeToString(new byte[32]));
+        ReflectionTestUtils.setField(accessTokenService, "ttl", Duration.ofMinutes(30));
+        ReflectionTestUtils.invokeMethod(accessTokenService, "init");
+        when(userPermissionCache.getModelVersion()).thenReturn(5L);
+        when(userPermissionCache.get(9)).thenReturn(permissions);
+        ReflectionTestUtils.setField(userPermissionCache, "clock", Clock.systemUTC());
+        ReflectionTestUtils.setField(userPermissionCache, "maskMaxAge", Duration.ofMinutes(1));
+        when(userPermissionCache.resolve(anyInt(), anyLong(), anyLong(), any())).thenCallRealMethod();
+    }
+
+    /**
+     * 测试签发的令牌可以校验通过，且授权模型版本未变时直接使用令牌中的权限掩码，不读取权限缓存。
+     */
+    @Test
+    void issueAndVerify() {
+        String token = accessTokenService.issue(9);
+        clearInvocations(userPermissionCache);
+
+        AccessTokenService.AccessToken decoded = accessTokenService.verify(token);
+
+        assertNotNull(decoded);
+        assertEquals(9, decoded.getUserId());
+        CompiledPermissions fromToken = accessTokenService.permissionsOf(decoded);
+        assertTrue(fromToken.has(3));
+        assertTrue(fromToken.has(70));
+        assertFalse(fromToken.has(4));
+        verify(userPermissionCache, never()).get(anyInt());
+    }
+
+    /**
+     * 测试授权模型版本变化后，改为按用户ID从权限缓存读取最新权限。
+     */
+    @Test
+    void staleModelVersionFallsBackToCache() {
+        AccessTokenService.AccessToken decoded = accessTokenService.verify(accessTokenService.issue(9));
+        CompiledPermissions current = CompiledPermissions.of(new int[]{2}, bits(4));
+        when(userPermissionCache.getModelVersion()).thenReturn(6L);
+        when(userPermissionCache.get(9)).thenReturn(current);
+
+        assertSame(current, accessTokenService.permissionsOf(decoded));
+    }
+
+    /**
+     * 测试令牌中的掩码超过 mask-max-age 后不再直接使用，即使授权模型版本未变也改为读取权限缓存。
+     */
+    @Test
+    void oldMaskFallsBackToCache() {
+        AccessTokenService.AccessToken decoded = accessTokenService.verify(accessTokenService.issue(9));
+        CompiledPermissions current = CompiledPermissions.of(new int[]{2}, bits(4));
+        when(userPermissionCache.get(9)).thenReturn(current);
+        ReflectionTestUtils.setField(userPermissionCache, "clock", Clock.offset(Clock.systemUTC(), Duration.ofMinutes(2)));
+
+        assertSame(current, accessTokenService.permissionsOf(decoded));
+    }
+
+    /**
+     * 测试被篡改、过期或格式错误的令牌校验失败。
+     */
+    @Test
+    void rejectsInvalidTokens() {
+        byte[] bytes = Base64.getUrlDecoder().decode(accessTokenService.issue(9));
+        bytes[1] ^= 1;
+        assertNull(accessTokenService.verify(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)));
+
+        ReflectionTestUtils.setField(accessTokenService, "ttl", Duration.ofSeconds(-1));
+        assertNull(accessTokenService.verify(accessTokenService.issue(9)));
+
+        assertNull(accessTokenService.verify("not a token"));
+        assertNull(accessTokenService.verify("AAAA"));
+    }
+
+    private static BitSet bits(int... permissionIds) {
+        BitSet bits = new BitSet();
+        for (int permissionId : permissionIds) {
+            bits.set(permissionId);
+        }
+        return bits;
+    }
+}
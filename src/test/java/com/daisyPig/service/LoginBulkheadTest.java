@@ -0,0 +1,68 @@
+package com.daisyPig.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginBulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginBulkhead loginBulkhead;
+
+    @BeforeEach
+    void setUp() {
+        loginBulkhead = new LoginBulkhead();
+        ReflectionTestUtils.setField(loginBulkhead, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loginBulkhead, "threads", 1);
+        ReflectionTestUtils.setField(loginBulkhead, "queueCapacity", 1);
+        loginBulkhead.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginBulkhead.shutdown();
+    }
+
+    /**
+     * 测试线程池和队列都已占满时，新的任务被立即拒绝并计数，
+     * 已接受的任务在放行后正常完成。
+     */
+    @Test
+    void rejectsWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = loginBulkhead.submit(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        });
+        started.await();
+        CompletableFuture<String> queued = loginBulkhead.submit(() -> "second");
+
+        assertEquals(1.0, meterRegistry.get("rbac.login.bulkhead.queue.depth").gauge().value());
+        assertThrows(RejectedExecutionException.class, () -> loginBulkhead.submit(() -> "third"));
+        assertEquals(1.0, meterRegistry.get("rbac.login.bulkhead.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("first", running.get());
+        assertEquals("second", queued.get());
+        assertEquals(2, meterRegistry.get("rbac.login.bulkhead.wait").timer().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.daisyPig.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        loginThrottle = new LoginThrottle();
+        ReflectionTestUtils.setField(loginThrottle, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loginThrottle, "usernameBurst", 3);
+        ReflectionTestUtils.setField(loginThrottle, "usernamePerMinute", 6);
+        ReflectionTestUtils.setField(loginThrottle, "ipBurst", 5);
+        ReflectionTestUtils.setField(loginThrottle, "ipPerMinute", 60);
+        ReflectionTestUtils.setField(loginThrottle, "maxKeys", 1000L);
+        loginThrottle.init();
+    }
+
+    /**
+     * 测试同一用户名连续尝试超过突发上限后被拒绝（不区分大小写），
+     * 返回的等待时间为补充一个令牌所需的时间，并且等待之后可以再次尝试。
+     */
+    @Test
+    void throttlesUsername() {
+        long now = 0;
+        loginThrottle.acquire("admin", "10.0.0.1", now);
+        loginThrottle.acquire("Admin", "10.0.0.2", now);
+        loginThrottle.acquire("ADMIN", "10.0.0.3", now);
+
+        LoginThrottle.ThrottledException e = assertThrows(LoginThrottle.ThrottledException.class,
+                () -> loginThrottle.acquire("admin", "10.0.0.4", 0));
+        // 每分钟 6 次，即每 10 秒补充一个令牌
+        assertEquals(10, e.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("rbac.login.throttled").tag("key", "username").counter().count());
+
+        loginThrottle.acquire("other", "10.0.0.4", now);
+        loginThrottle.acquire("admin", "10.0.0.4", now + TimeUnit.SECONDS.toNanos(10));
+    }
+
+    /**
+     * 测试同一客户端地址尝试不同用户名时，按地址限流。
+     */
+    @Test
+    void throttlesRemoteAddress() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user" + i, "10.0.0.1", 0);
+        }
+        assertThrows(LoginThrottle.ThrottledException.class, () -> loginThrottle.acquire("user5", "10.0.0.1", 0));
+        assertEquals(1.0, meterRegistry.get("rbac.login.throttled").tag("key", "ip").counter().count());
+        loginThrottle.acquire("user5", "10.0.0.2", 0);
+    }
+}
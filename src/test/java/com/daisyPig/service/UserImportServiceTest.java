@@ -0,0 +1,71 @@
+package com.daisyPig.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportServiceTest {
+
+    private UserImportService userImportService;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportService();
+        ReflectionTestUtils.setField(userImportService, "maxSize", DataSize.ofBytes(64));
+        ReflectionTestUtils.setField(userImportService, "maxRows", 2L);
+    }
+
+    /**
+     * 测试请求体超过大小上限时拒绝导入，且不占用导入任务的运行标记。
+     */
+    @Test
+    void startImport_RejectsOversizedContent() {
+        String content = "username,password,email\n" + "a".repeat(64) + ",pass1,a@example.com\n";
+
+        assertThrows(UserImportService.TooLargeException.class,
+                () -> userImportService.startImport(stream(content), UserImportService.FORMAT_CSV));
+        assertThrows(UserImportService.TooLargeException.class,
+                () -> userImportService.startImport(stream(content), UserImportService.FORMAT_CSV));
+    }
+
+    /**
+     * 测试记录数超过上限时拒绝导入（CSV 表头不计入）。
+     */
+    @Test
+    void startImport_RejectsTooManyRows() {
+        assertThrows(UserImportService.TooManyRowsException.class,
+                () -> userImportService.startImport(stream("u\na\nb\nc\n"), UserImportService.FORMAT_CSV));
+        assertThrows(UserImportService.TooManyRowsException.class,
+                () -> userImportService.startImport(stream("a\nb\nc"), UserImportService.FORMAT_NDJSON));
+    }
+
+    /**
+     * 测试空行和 CSV 表头不计入记录数，未超限的内容完整保存。
+     */
+    @Test
+    void save_IgnoresBlankLinesAndHeader() throws Exception {
+        String content = "u\n\na\r\n  \nb\n";
+        Path file = tempDir.resolve("import.csv");
+
+        ReflectionTestUtils.invokeMethod(userImportService, "save", stream(content), file, UserImportService.FORMAT_CSV);
+
+        assertEquals(content, Files.readString(file));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
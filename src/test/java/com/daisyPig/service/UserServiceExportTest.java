@@ -0,0 +1,89 @@
+package com.daisyPig.service;
+
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.daisyPig.mapper.UserMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserServiceExportTest {
+
+    private static final String DB_URL = "jdbc:h2:mem:export;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private JdbcConnectionPool dataSource;
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = JdbcConnectionPool.create(DB_URL, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM user_roles");
+            statement.execute("DELETE FROM roles");
+            statement.execute("DELETE FROM users");
+            statement.execute("INSERT INTO roles (id, role_name) VALUES (1, 'Administrator'), (2, 'RegularUser')");
+            statement.execute("INSERT INTO users (id, username, password, email) VALUES "
+                    + "(1, 'alice', 'x', 'alice@example.com'), (2, 'bob', 'x', NULL), (3, 'carol', 'x', NULL)");
+            statement.execute("INSERT INTO user_roles (user_id, role_id) VALUES (1, 1), (1, 2), (3, 2)");
+        }
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath*:mapper/*.xml"));
+        sqlSessionFactory = factoryBean.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.dispose();
+    }
+
+    /**
+     * 测试在内嵌 H2 上导出用户：流式查询的 fetchSize 必须被 H2 接受，
+     * 每个用户输出一行并带上全部角色，没有角色的用户角色列表为空。
+     */
+    @Test
+    void exportUsers_OnH2() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            UserService userService = new UserService();
+            ReflectionTestUtils.setField(userService, "userMapper", session.getMapper(UserMapper.class));
+            ReflectionTestUtils.setField(userService, "objectMapper", objectMapper);
+
+            assertEquals(3, userService.exportUsers(out));
+        }
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, lines.size());
+        JsonNode alice = objectMapper.readTree(lines.get(0));
+        assertEquals("alice", alice.path("username").asText());
+        Set<String> roles = new HashSet<>();
+        alice.path("roles").forEach(role -> roles.add(role.asText()));
+        assertEquals(Set.of("Administrator", "RegularUser"), roles);
+        assertEquals(0, objectMapper.readTree(lines.get(1)).path("roles").size());
+        assertEquals("RegularUser", objectMapper.readTree(lines.get(2)).path("roles").get(0).asText());
+    }
+}
@@ -0,0 +1,113 @@
+package com.daisyPig.session;
+
+import com.daisyPig.dto.SessionPrincipal;
+import com.daisyPig.entity.SessionRecord;
+import com.daisyPig.mapper.SessionRecordMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JdbcSessionRepositoryTest {
+
+    @Mock
+    private SessionRecordMapper sessionRecordMapper;
+
+    private JdbcSessionRepository sessionRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        sessionRepository = new JdbcSessionRepository(sessionRecordMapper, Duration.ofHours(2), Duration.ofSeconds(60));
+    }
+
+    /**
+     * 测试新会话整行写入，写入的属性可以被 findById 还原。
+     */
+    @Test
+    void saveAndFind() {
+        JdbcSessionRepository.JdbcSession session = sessionRepository.createSession();
+        session.setAttribute(SessionPrincipal.SESSION_ATTRIBUTE, new SessionPrincipal(3, 9L, 1_700_000_000_000L, new long[]{5L}));
+        sessionRepository.save(session);
+
+        ArgumentCaptor<SessionRecord> captor = ArgumentCaptor.forClass(SessionRecord.class);
+        verify(sessionRecordMapper).upsert(captor.capture());
+        SessionRecord record = captor.getValue();
+        assertEquals(session.getId(), record.getId());
+        assertEquals(7200, record.getMaxInactiveInterval());
+        assertEquals(record.getLastAccessTime() + 7_200_000L, record.getExpiryTime());
+
+        when(sessionRecordMapper.selectById(session.getId())).thenReturn(record);
+        JdbcSessionRepository.JdbcSession loaded = sessionRepository.findById(session.getId());
+        SessionPrincipal principal = loaded.getAttribute(SessionPrincipal.SESSION_ATTRIBUTE);
+        assertEquals(3, principal.getUserId());
+        assertArrayEquals(new long[]{5L}, principal.getPermissions());
+    }
+
+    /**
+     * 测试只有访问时间变化时合并写入：间隔内不写库，超过间隔只更新访问时间。
+     */
+    @Test
+    void coalescesTouchWrites() {
+        JdbcSessionRepository.JdbcSession session = sessionRepository.findById(stored("s1", Instant.now()).getId());
+        Instant loadedAccess = session.getLastAccessedTime();
+
+        session.setLastAccessedTime(loadedAccess.plusSeconds(30));
+        sessionRepository.save(session);
+        verify(sessionRecordMapper, never()).touch(anyString(), anyLong(), anyLong());
+        verify(sessionRecordMapper, never()).upsert(any());
+
+        Instant later = loadedAccess.plusSeconds(61);
+        session.setLastAccessedTime(later);
+        sessionRepository.save(session);
+        verify(sessionRecordMapper).touch("s1", later.toEpochMilli(), later.toEpochMilli() + 7_200_000L);
+
+        session.setLastAccessedTime(later.plusSeconds(1));
+        sessionRepository.save(session);
+        verify(sessionRecordMapper, times(1)).touch(anyString(), anyLong(), anyLong());
+        verify(sessionRecordMapper, never()).upsert(any());
+    }
+
+    /**
+     * 测试已过期的会话查询时返回 null 并被删除。
+     */
+    @Test
+    void expiredSessionIsDeleted() {
+        stored("s2", Instant.now().minus(Duration.ofHours(3)));
+
+        assertNull(sessionRepository.findById("s2"));
+        verify(sessionRecordMapper).deleteById("s2");
+    }
+
+    /**
+     * 测试过期会话按批删除，直到某一批不满为止。
+     */
+    @Test
+    void deleteExpiredInBatches() {
+        when(sessionRecordMapper.deleteExpired(anyLong(), eq(100))).thenReturn(100, 100, 7);
+
+        assertEquals(207, sessionRepository.deleteExpired(100));
+        verify(sessionRecordMapper, times(3)).deleteExpired(anyLong(), eq(100));
+    }
+
+    private SessionRecord stored(String id, Instant lastAccess) {
+        SessionRecord record = new SessionRecord();
+        record.setId(id);
+        record.setCreationTime(lastAccess.toEpochMilli());
+        record.setLastAccessTime(lastAccess.toEpochMilli());
+        record.setMaxInactiveInterval(7200);
+        record.setExpiryTime(lastAccess.toEpochMilli() + 7_200_000L);
+        record.setAttributes(SessionAttributesCodec.encode(Map.of("currentUser", new SessionPrincipal(1, 1L, 0L, null))));
+        when(sessionRecordMapper.selectById(id)).thenReturn(record);
+        return record;
+    }
+}
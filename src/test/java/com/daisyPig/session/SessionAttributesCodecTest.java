@@ -0,0 +1,126 @@
+package com.daisyPig.session;
+
+import com.daisyPig.dto.SessionPrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionAttributesCodecTest {
+
+    /**
+     * 测试登录主体按紧凑格式编码，其它可序列化属性退回 Java 序列化，二者都能还原。
+     */
+    @Test
+    void roundTrip() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("currentUser", new SessionPrincipal(8, 2L, 1_700_000_000_000L, new long[]{0xffL}));
+        attributes.put("locale", "zh_CN");
+
+        Map<String, Object> decoded = SessionAttributesCodec.decode(SessionAttributesCodec.encode(attributes));
+
+        SessionPrincipal principal = (SessionPrincipal) decoded.get("currentUser");
+        assertEquals(8, principal.getUserId());
+        assertEquals(2L, principal.getModelVersion());
+        assertEquals(1_700_000_000_000L, principal.getIssuedAt());
+        assertArrayEquals(new long[]{0xffL}, principal.getPermissions());
+        assertEquals("zh_CN", decoded.get("locale"));
+    }
+
+    /**
+     * 测试只含登录主体的会话编码后只有几十字节。
+     */
+    @Test
+    void principalOnlyIsCompact() {
+        byte[] encoded = SessionAttributesCodec.encode(Map.of("currentUser", new SessionPrincipal(8, 2L, 1_700_000_000_000L, new long[]{0xffL})));
+
+        // 3B 头 + 13B 名称 + 1B 类型 + 30B 主体
+        assertEquals(47, encoded.length);
+    }
+
+    /**
+     * 测试升级前写入的旧版登录主体（不含生成时间）仍可读取，生成时间视为未知。
+     */
+    @Test
+    void decodesLegacyPrincipal() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeShort(1);
+            out.writeUTF("currentUser");
+            out.writeByte(1);
+            out.writeInt(8);
+            out.writeLong(2L);
+            out.writeShort(1);
+            out.writeLong(0xffL);
+        }
+
+        SessionPrincipal principal = (SessionPrincipal) SessionAttributesCodec.decode(bytes.toByteArray()).get("currentUser");
+
+        assertEquals(8, principal.getUserId());
+        assertEquals(2L, principal.getModelVersion());
+        assertEquals(0L, principal.getIssuedAt());
+        assertArrayEquals(new long[]{0xffL}, principal.getPermissions());
+    }
+
+    /**
+     * 测试 java.util 中的集合等允许的类可以经 Java 序列化还原。
+     */
+    @Test
+    void decodesAllowedSerializable() {
+        Map<String, Object> decoded = SessionAttributesCodec.decode(
+                SessionAttributesCodec.encode(Map.of("recent", new ArrayList<>(List.of("a", "b")))));
+
+        assertEquals(List.of("a", "b"), decoded.get("recent"));
+    }
+
+    /**
+     * 测试不在白名单中的类在反序列化时被拒绝。
+     */
+    @Test
+    void rejectsDisallowedClass() {
+        byte[] encoded = SessionAttributesCodec.encode(Map.of("gadget", new Gadget("x")));
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> SessionAttributesCodec.decode(encoded));
+        assertInstanceOf(InvalidClassException.class, e.getCause());
+    }
+
+    /**
+     * 测试篡改的长度字段在分配数组之前被拒绝。
+     */
+    @Test
+    void rejectsOversizedLength() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeShort(1);
+            out.writeUTF("locale");
+            out.writeByte(2);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertThrows(UncheckedIOException.class, () -> SessionAttributesCodec.decode(bytes.toByteArray()));
+    }
+
+    /**
+     * 测试不可序列化的属性无法写入。
+     */
+    @Test
+    void rejectsNonSerializable() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SessionAttributesCodec.encode(Map.of("lock", new Object())));
+    }
+
+    private record Gadget(String command) implements Serializable {
+    }
+}